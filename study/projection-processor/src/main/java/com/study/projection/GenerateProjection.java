@@ -0,0 +1,16 @@
+package com.study.projection;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * DTO 의 Querydsl 프로젝션 팩토리(&lt;DTO 이름&gt;Projection)를 컴파일 시점에 생성한다.
+ * 클래스에 붙이면 기본 생성자 + setter(없으면 필드 직접 대입), 생성자에 붙이면 그 생성자를 직접 호출한다.
+ * 리플렉션을 쓰지 않고, 소스 단계에서만 필요하므로 DTO 는 Querydsl 에 의존하지 않는다.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target({ElementType.TYPE, ElementType.CONSTRUCTOR})
+public @interface GenerateProjection {
+}
@@ -0,0 +1,218 @@
+package com.study.projection;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link GenerateProjection} 처리기
+ * Querydsl 의 Projections.bean/fields/constructor 는 행마다 리플렉션으로 setter/필드/생성자를 호출한다.
+ * 생성되는 팩토리는 FactoryExpression 을 직접 구현하고 newInstance 에서 일반 메서드 호출만 한다.
+ */
+@SupportedAnnotationTypes("com.study.projection.GenerateProjection")
+public class ProjectionProcessor extends AbstractProcessor {
+
+    private static final Set<String> LOMBOK_SETTERS = Set.of("lombok.Data", "lombok.Setter");
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateProjection.class)) {
+            try {
+                if (element.getKind() == ElementKind.CONSTRUCTOR) {
+                    generate(constructorProjection((ExecutableElement) element));
+                } else if (element.getKind() == ElementKind.CLASS) {
+                    generate(beanProjection((TypeElement) element));
+                } else {
+                    error(element, "@GenerateProjection 은 클래스나 생성자에만 붙일 수 있습니다.");
+                }
+            } catch (IllegalStateException e) {
+                error(element, e.getMessage());
+            }
+        }
+        return true;
+    }
+
+    /**
+     * new Dto(a0, a1, ...)
+     * 기본형 파라미터에 null 이 오면(예: left join 한 쪽의 값) 언박싱 NPE 대신 어느 파라미터인지 알려 주는 NPE 를 던진다.
+     */
+    private Projection constructorProjection(ExecutableElement constructor) {
+        TypeElement type = (TypeElement) constructor.getEnclosingElement();
+        if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+            throw new IllegalStateException("private 생성자는 호출할 수 없습니다.");
+        }
+        List<Property> properties = new ArrayList<>();
+        List<String> arguments = new ArrayList<>();
+        for (VariableElement parameter : constructor.getParameters()) {
+            Property property = new Property(parameter.getSimpleName().toString(), parameter.asType());
+            String value = "a[" + properties.size() + "]";
+            if (property.type.getKind().isPrimitive()) {
+                value = "java.util.Objects.requireNonNull(" + value + ", \"" + type.getSimpleName()
+                        + " 생성자의 기본형 파라미터 " + property.name + " 에 null 을 넣을 수 없습니다.\")";
+            }
+            arguments.add("(" + boxed(property.type) + ") " + value);
+            properties.add(property);
+        }
+        List<String> body = List.of("return new " + type.getQualifiedName() + "(" + String.join(", ", arguments) + ");");
+        return new Projection(type, properties, body);
+    }
+
+    /**
+     * Dto dto = new Dto(); dto.setX(a0); ...
+     * Projections.bean/fields 처럼 null 인 값은 대입하지 않는다. (기본형 필드는 기본값 유지)
+     */
+    private Projection beanProjection(TypeElement type) {
+        boolean hasDefaultConstructor = ElementFilter.constructorsIn(type.getEnclosedElements()).stream()
+                .anyMatch(c -> c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE));
+        if (!hasDefaultConstructor) {
+            throw new IllegalStateException("기본 생성자가 필요합니다.");
+        }
+        boolean lombokSetters = hasLombokSetter(type);
+
+        List<Property> properties = new ArrayList<>();
+        List<String> body = new ArrayList<>();
+        body.add(type.getQualifiedName() + " dto = new " + type.getQualifiedName() + "();");
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            String name = field.getSimpleName().toString();
+            Property property = new Property(name, field.asType());
+            String value = "(" + boxed(property.type) + ") a[" + properties.size() + "]";
+            String setter = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+
+            String assignment;
+            if (lombokSetters || hasLombokSetter(field) || hasSetter(type, setter)) {
+                assignment = "dto." + setter + "(" + value + ");";
+            } else if (!modifiers.contains(Modifier.PRIVATE) && !modifiers.contains(Modifier.FINAL)) {
+                assignment = "dto." + name + " = " + value + ";";
+            } else {
+                throw new IllegalStateException(name + " 에 대입할 setter 나 private 이 아닌 필드가 없습니다.");
+            }
+            body.add("if (a[" + properties.size() + "] != null) {");
+            body.add("    " + assignment);
+            body.add("}");
+            properties.add(property);
+        }
+        body.add("return dto;");
+        return new Projection(type, properties, body);
+    }
+
+    private boolean hasSetter(TypeElement type, String setter) {
+        return ElementFilter.methodsIn(type.getEnclosedElements()).stream()
+                .anyMatch(m -> m.getSimpleName().contentEquals(setter)
+                        && m.getParameters().size() == 1
+                        && !m.getModifiers().contains(Modifier.PRIVATE));
+    }
+
+    /**
+     * 롬복이 먼저 실행됐으면 setter 가 이미 보이고, 아니면 애노테이션으로 판단한다.
+     */
+    private boolean hasLombokSetter(Element element) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (LOMBOK_SETTERS.contains(annotation.getAnnotationType().toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String boxed(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    private void generate(Projection projection) {
+        TypeElement type = projection.type;
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String dtoName = type.getQualifiedName().toString();
+        String className = type.getSimpleName() + "Projection";
+
+        List<String> parameters = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (Property property : projection.properties) {
+            parameters.add("com.querydsl.core.types.Expression<? extends " + boxed(property.type) + "> " + property.name);
+            names.add(property.name);
+        }
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(packageName + "." + className, type);
+            try (PrintWriter out = new PrintWriter(file.openWriter())) {
+                if (!packageName.isEmpty()) {
+                    out.println("package " + packageName + ";");
+                    out.println();
+                }
+                out.println("@javax.annotation.processing.Generated(\"" + ProjectionProcessor.class.getName() + "\")");
+                out.println("public class " + className
+                        + " extends com.querydsl.core.types.FactoryExpressionBase<" + dtoName + "> {");
+                out.println();
+                out.println("    private static final long serialVersionUID = 1L;");
+                out.println();
+                out.println("    private final java.util.List<com.querydsl.core.types.Expression<?>> args;");
+                out.println();
+                out.println("    public " + className + "(" + String.join(", ", parameters) + ") {");
+                out.println("        super(" + dtoName + ".class);");
+                out.println("        this.args = java.util.List.of(" + String.join(", ", names) + ");");
+                out.println("    }");
+                out.println();
+                out.println("    @Override");
+                out.println("    public java.util.List<com.querydsl.core.types.Expression<?>> getArgs() {");
+                out.println("        return args;");
+                out.println("    }");
+                out.println();
+                out.println("    @Override");
+                out.println("    @SuppressWarnings(\"unchecked\")");
+                out.println("    public " + dtoName + " newInstance(Object... a) {");
+                for (String line : projection.body) {
+                    out.println("        " + line);
+                }
+                out.println("    }");
+                out.println();
+                out.println("    @Override");
+                out.println("    public <R, C> R accept(com.querydsl.core.types.Visitor<R, C> v, C context) {");
+                out.println("        return v.visit(this, context);");
+                out.println("    }");
+                out.println("}");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private record Property(String name, TypeMirror type) {
+    }
+
+    private record Projection(TypeElement type, List<Property> properties, List<String> body) {
+    }
+}
@@ -0,0 +1,80 @@
+#!/usr/bin/env bash
+# JVM(bootJar) 와 네이티브 이미지의 기동 시간, RSS 비교 (Linux, /proc 사용)
+#
+#   ./gradlew bootJar nativeCompile
+#   scripts/startup-compare.sh
+#
+# 두 실행 파일을 같은 프로파일(prod), 같은 DB, 같은 /v3/members 부하로 차례로 띄운다.
+# - startup: 프로세스 시작부터 /actuator/health/readiness 가 UP 이 될 때까지 (MemberSearchWarmup 포함)
+# - rss: 준비 직후, 부하 후 VmRSS 와 최대치 VmHWM
+# 환경 변수: DB_URL, PROFILES, PORT, REQUESTS, CONCURRENCY, JAVA_OPTS
+# DB 는 두 실행이 같은 데이터를 보도록 H2 서버를 쓰고, ddl-auto=update 로 기존 데이터를 지우지 않는다.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+DB_URL=${DB_URL:-jdbc:h2:tcp://localhost/~/test}
+PROFILES=${PROFILES:-prod}
+PORT=${PORT:-18080}
+REQUESTS=${REQUESTS:-2000}
+CONCURRENCY=${CONCURRENCY:-8}
+JAVA_OPTS=${JAVA_OPTS:-}
+
+JAR=$(ls build/libs/study-*.jar | grep -v -- '-plain' | head -n 1)
+NATIVE=build/native/nativeCompile/study
+
+APP_ARGS=(
+  "--server.port=$PORT"
+  "--spring.profiles.active=$PROFILES"
+  "--spring.datasource.url=$DB_URL"
+  "--spring.jpa.hibernate.ddl-auto=update"
+)
+
+rss_kb() {
+  awk -v key="$2:" '$1 == key { print $2 }' "/proc/$1/status"
+}
+
+wait_ready() {
+  until curl -sf "http://localhost:$PORT/actuator/health/readiness" > /dev/null; do
+    if ! kill -0 "$1" 2> /dev/null; then
+      echo "process $1 exited before readiness" >&2
+      return 1
+    fi
+    sleep 0.05
+  done
+}
+
+workload() {
+  seq 0 $((REQUESTS - 1)) \
+    | awk -v port="$PORT" '{ printf "http://localhost:%s/v3/members?page=%d&size=20\n", port, $1 % 50 }' \
+    | xargs -P "$CONCURRENCY" -n 50 curl -s -o /dev/null
+}
+
+measure() {
+  local name=$1
+  shift
+  local start end pid
+  start=$(date +%s%N)
+  "$@" "${APP_ARGS[@]}" > "build/startup-compare-$name.log" 2>&1 &
+  pid=$!
+  wait_ready "$pid"
+  end=$(date +%s%N)
+  local startup_ms=$(((end - start) / 1000000))
+  local ready_rss
+  ready_rss=$(rss_kb "$pid" VmRSS)
+
+  start=$(date +%s%N)
+  workload
+  end=$(date +%s%N)
+  local workload_ms=$(((end - start) / 1000000))
+
+  printf '%-7s startup=%6dms  rss(ready)=%7dKB  rss(after)=%7dKB  rss(peak)=%7dKB  workload=%6dms (%d req)\n' \
+    "$name" "$startup_ms" "$ready_rss" "$(rss_kb "$pid" VmRSS)" "$(rss_kb "$pid" VmHWM)" "$workload_ms" "$REQUESTS"
+
+  kill "$pid"
+  wait "$pid" 2> /dev/null || true
+}
+
+# shellcheck disable=SC2086
+measure jvm java $JAVA_OPTS -jar "$JAR"
+measure native "$NATIVE"
@@ -0,0 +1,57 @@
+package com.study.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.dto.MemberTeamDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page&lt;MemberTeamDto&gt; 인코딩 비교: Jackson JSON vs 열 단위 바이너리
+ * 결과의 bytes 는 -prof gc 와 함께 보면 응답 크기/할당량을 같이 비교할 수 있다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberPageEncodingBenchmark {
+
+    @Param({"20", "1000"})
+    int pageSize;
+
+    ObjectMapper objectMapper;
+    Page<MemberTeamDto> page;
+    ByteArrayOutputStream buffer;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper();
+        List<MemberTeamDto> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            long teamId = i % 10;
+            content.add(new MemberTeamDto((long) i, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), pageSize * 10L);
+        buffer = new ByteArrayOutputStream(64 * pageSize);
+    }
+
+    @Benchmark
+    public int json() throws IOException {
+        buffer.reset();
+        objectMapper.writeValue(buffer, page);
+        return buffer.size();
+    }
+
+    @Benchmark
+    public int columnar() throws IOException {
+        buffer.reset();
+        MemberPageColumnarConverter.write(page, page.getContent(), buffer);
+        return buffer.size();
+    }
+}
@@ -0,0 +1,90 @@
+package com.study.dto;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.study.entity.QMember.member;
+import static com.study.entity.QTeam.team;
+
+/**
+ * 행 -> DTO 변환 비용 비교 (DB 없이 newInstance 만)
+ * Projections.bean/fields/constructor 는 리플렉션, XxxProjection 은 @GenerateProjection 으로 생성된 직접 호출
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProjectionFactoryBenchmark {
+
+    @Param({"1000"})
+    int rows;
+
+    Object[][] memberRows;
+    Object[][] memberTeamRows;
+
+    FactoryExpression<MemberDto> bean;
+    FactoryExpression<MemberDto> generatedBean;
+    FactoryExpression<UserDto> fields;
+    FactoryExpression<UserDto> generatedFields;
+    FactoryExpression<MemberTeamDto> constructor;
+    FactoryExpression<MemberTeamDto> generatedConstructor;
+
+    @Setup
+    public void setUp() {
+        memberRows = new Object[rows][];
+        memberTeamRows = new Object[rows][];
+        for (int i = 0; i < rows; i++) {
+            long teamId = i % 10;
+            memberRows[i] = new Object[]{"member" + i, i % 100};
+            memberTeamRows[i] = new Object[]{(long) i, "member" + i, i % 100, teamId, "team" + teamId};
+        }
+
+        bean = Projections.bean(MemberDto.class, member.username, member.age);
+        generatedBean = new MemberDtoProjection(member.username, member.age);
+        fields = Projections.fields(UserDto.class, ExpressionUtils.as(member.username, "name"), member.age);
+        generatedFields = new UserDtoProjection(member.username, member.age);
+        constructor = Projections.constructor(MemberTeamDto.class,
+                member.id, member.username, member.age, team.id, team.name);
+        generatedConstructor = new MemberTeamDtoProjection(member.id, member.username, member.age, team.id, team.name);
+    }
+
+    @Benchmark
+    public void bean(Blackhole blackhole) {
+        materialize(bean, memberRows, blackhole);
+    }
+
+    @Benchmark
+    public void generatedBean(Blackhole blackhole) {
+        materialize(generatedBean, memberRows, blackhole);
+    }
+
+    @Benchmark
+    public void fields(Blackhole blackhole) {
+        materialize(fields, memberRows, blackhole);
+    }
+
+    @Benchmark
+    public void generatedFields(Blackhole blackhole) {
+        materialize(generatedFields, memberRows, blackhole);
+    }
+
+    @Benchmark
+    public void constructor(Blackhole blackhole) {
+        materialize(constructor, memberTeamRows, blackhole);
+    }
+
+    @Benchmark
+    public void generatedConstructor(Blackhole blackhole) {
+        materialize(generatedConstructor, memberTeamRows, blackhole);
+    }
+
+    private static void materialize(FactoryExpression<?> factory, Object[][] rows, Blackhole blackhole) {
+        for (Object[] row : rows) {
+            blackhole.consume(factory.newInstance(row));
+        }
+    }
+}
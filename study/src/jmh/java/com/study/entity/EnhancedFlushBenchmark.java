@@ -0,0 +1,91 @@
+package com.study.entity;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 영속성 컨텍스트에 회원 entities 명을 올려둔 채 flush 하는 비용, 회원 entities 명을 관리 상태로 읽는 비용
+ * 바이트코드 향상의 dirty tracking 을 켠 빌드(기본)와 끈 빌드를 비교한다.
+ * build.gradle 의 jmh 블록에 includes = ["EnhancedFlushBenchmark"] 를 주고
+ *   ./gradlew jmh, ./gradlew clean jmh -PhibernateDirtyTracking=false 를 각각 실행한다.
+ * modified=0 은 변경 없는 flush, 즉 관리 중인 엔티티 수에 비례하는 변경 감지 비용만 잰다.
+ * modified 가 있으면 UPDATE 와 MemberUsernameGramListener 의 n-gram 동기화가 함께 들어간다.
+ * load 의 엔티티당 메모리는 -prof gc (jmh 블록의 profilers = ['gc']) 의 gc.alloc.rate.norm / entities 로 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EnhancedFlushBenchmark {
+
+    @Param({"100000"})
+    int entities;
+
+    @Param({"0", "100"})
+    int modified;
+
+    SessionFactory sessionFactory;
+    Session session;
+    List<Member> members;
+    int cursor;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Team.class)
+                .addAnnotatedClass(Member.class)
+                .setProperty(AvailableSettings.URL, "jdbc:h2:mem:flush;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.USER, "sa")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "50")
+                .buildSessionFactory();
+
+        try (Session insert = sessionFactory.openSession()) {
+            insert.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("insert into team (team_id, name, version)"
+                            + " select x, 'team' || x, 0 from system_range(1, 100)");
+                    statement.execute("insert into member (member_id, username, age, team_id, team_name, version)"
+                            + " select x, 'member' || x, mod(x, 100), mod(x, 100) + 1, 'team' || (mod(x, 100) + 1), 0"
+                            + " from system_range(1, " + entities + ")");
+                }
+            });
+        }
+
+        session = sessionFactory.openSession();
+        session.beginTransaction();
+        members = session.createQuery("select m from Member m", Member.class).getResultList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        session.getTransaction().rollback();
+        session.close();
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void flush() {
+        for (int i = 0; i < modified; i++) {
+            Member member = members.get(cursor++ % members.size());
+            member.setAge(member.getAge() + 1);
+        }
+        session.flush();
+    }
+
+    @Benchmark
+    public int load() {
+        try (Session load = sessionFactory.openSession()) {
+            load.beginTransaction();
+            int size = load.createQuery("select m from Member m", Member.class).getResultList().size();
+            load.getTransaction().rollback();
+            return size;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.study.repository;
+
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * H2 TCP 서버에서 페이지 하나를 읽을 때 fetch size 별 비교
+ * fetchSize=0 은 드라이버 기본값(64행씩), pageSize 와 같게 주면 FetchSizePolicy.forPage() 와 같다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FetchSizeBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @Param({"20", "200", "1000"})
+    int pageSize;
+
+    @Param({"0", "pageSize"})
+    String fetchSize;
+
+    Server server;
+    Connection connection;
+    PreparedStatement query;
+
+    @Setup
+    public void setUp() throws SQLException {
+        server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+        connection = DriverManager.getConnection(
+                "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:fetch", "sa", "");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("create table team (team_id bigint primary key, name varchar(255))");
+            ddl.execute("create table member (member_id bigint primary key, username varchar(255),"
+                    + " age int not null, team_id bigint)");
+            ddl.execute("insert into team select x, 'team' || x from system_range(1, 100)");
+            ddl.execute("insert into member select x, 'member' || x, mod(x, 100), mod(x, 100) + 1"
+                    + " from system_range(1, " + ROWS + ")");
+        }
+        query = connection.prepareStatement("select m.member_id, m.username, m.age, t.team_id, t.name"
+                + " from member m left join team t on m.team_id = t.team_id"
+                + " order by m.member_id offset ? rows fetch next ? rows only");
+        query.setFetchSize("pageSize".equals(fetchSize) ? pageSize : 0);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        server.stop();
+    }
+
+    @Benchmark
+    public long readPage() throws SQLException {
+        query.setInt(1, ROWS / 2);
+        query.setInt(2, pageSize);
+        long sum = 0;
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                sum += rs.getLong(1) + rs.getInt(3);
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,149 @@
+package com.study.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.dto.MemberTeamDto;
+import com.study.dto.MemberTeamDtoProjection;
+import com.study.entity.Member;
+import com.study.entity.Team;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.study.entity.QMember.member;
+import static com.study.entity.QTeam.team;
+
+/**
+ * 요청 하나의 조회 트랜잭션 비용: 읽기/쓰기 세션 vs 읽기 전용(FlushMode.MANUAL, defaultReadOnly) vs StatelessSession
+ * MemberRepositoryCustomImpl 의 DTO 검색(selectMemberTeamDto)과 엔티티 조회(findDetachedByUsername)와 같은 형태
+ * 호출당 할당량은 build.gradle 의 jmh 블록에 profilers = ['gc'] 를 주고 gc.alloc.rate.norm 으로 본다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReadOnlySearchBenchmark {
+
+    /**
+     * 조회 한 번에 age 하나, members / 100 행을 읽는다.
+     */
+    @Param({"100000"})
+    int members;
+
+    int age;
+
+    SessionFactory sessionFactory;
+
+    @Setup
+    public void setUp() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(Team.class)
+                .addAnnotatedClass(Member.class)
+                .setProperty(AvailableSettings.URL, "jdbc:h2:mem:readonly;DB_CLOSE_DELAY=-1")
+                .setProperty(AvailableSettings.USER, "sa")
+                .setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .buildSessionFactory();
+
+        try (Session insert = sessionFactory.openSession()) {
+            insert.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("insert into team (team_id, name, version)"
+                            + " select x, 'team' || x, 0 from system_range(1, 100)");
+                    statement.execute("insert into member (member_id, username, age, team_id, team_name, version)"
+                            + " select x, 'member' || x, mod(x, 100), mod(x, 100) + 1, 'team' || (mod(x, 100) + 1), 0"
+                            + " from system_range(1, " + members + ")");
+                    statement.execute("create index idx_member_age on member (age)");
+                }
+            });
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    private int nextAge() {
+        age = (age + 1) % 100;
+        return age;
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> dtoReadWrite() {
+        try (Session session = sessionFactory.openSession()) {
+            return searchDto(session);
+        }
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> dtoReadOnly() {
+        try (Session session = sessionFactory.openSession()) {
+            readOnly(session);
+            return searchDto(session);
+        }
+    }
+
+    @Benchmark
+    public List<Member> entityReadWrite() {
+        try (Session session = sessionFactory.openSession()) {
+            return findEntities(session);
+        }
+    }
+
+    @Benchmark
+    public List<Member> entityReadOnly() {
+        try (Session session = sessionFactory.openSession()) {
+            readOnly(session);
+            return findEntities(session);
+        }
+    }
+
+    @Benchmark
+    public List<Member> entityStateless() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.beginTransaction();
+            List<Member> result = session
+                    .createSelectionQuery("select m from Member m left join fetch m.team where m.age = :age", Member.class)
+                    .setParameter("age", nextAge())
+                    .getResultList();
+            session.getTransaction().commit();
+            return result;
+        }
+    }
+
+    /**
+     * 스프링의 @Transactional(readOnly = true) 가 세션에 하는 설정
+     */
+    private static void readOnly(Session session) {
+        session.setHibernateFlushMode(FlushMode.MANUAL);
+        session.setDefaultReadOnly(true);
+    }
+
+    private List<MemberTeamDto> searchDto(Session session) {
+        session.beginTransaction();
+        List<MemberTeamDto> result = new JPAQueryFactory(session)
+                .select(new MemberTeamDtoProjection(member.id, member.username, member.age, team.id, team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.age.eq(nextAge()))
+                .fetch();
+        session.getTransaction().commit();
+        return result;
+    }
+
+    private List<Member> findEntities(Session session) {
+        session.beginTransaction();
+        List<Member> result = session
+                .createSelectionQuery("select m from Member m left join fetch m.team where m.age = :age", Member.class)
+                .setParameter("age", nextAge())
+                .getResultList();
+        session.getTransaction().commit();
+        return result;
+    }
+}
@@ -0,0 +1,95 @@
+package com.study.repository;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * teamName 검색: team 조인 vs member.team_name 비정규화 컬럼
+ * MemberRepositoryCustomImpl 이 만드는 두 SQL 형태를 같은 데이터로 비교한다.
+ * 10M 회원은 build.gradle 의 jmh 블록에 benchmarkParameters = [members: ["10000000"]] 를 주고 실행한다. (힙 4G 이상)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TeamNameSearchBenchmark {
+
+    @Param({"1000000"})
+    int members;
+
+    @Param({"1000"})
+    int teams;
+
+    Connection connection;
+    PreparedStatement joinPage;
+    PreparedStatement joinCount;
+    PreparedStatement denormalizedPage;
+    PreparedStatement denormalizedCount;
+    int teamNo;
+
+    @Setup
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:denormalized;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("create table team (team_id bigint primary key, name varchar(255))");
+            ddl.execute("create index idx_team_name on team (name)");
+            ddl.execute("create table member (member_id bigint primary key, username varchar(255),"
+                    + " age int not null, team_id bigint, team_name varchar(255))");
+            ddl.execute("insert into team select x, 'team' || x from system_range(1, " + teams + ")");
+            ddl.execute("insert into member select x, 'member' || x, mod(x, 100), mod(x, " + teams + ") + 1,"
+                    + " 'team' || (mod(x, " + teams + ") + 1) from system_range(1, " + members + ")");
+            ddl.execute("create index idx_member_team_id on member (team_id)");
+            ddl.execute("create index idx_member_team_name on member (team_name)");
+        }
+        joinPage = connection.prepareStatement("select m.member_id, m.username, m.age, t.team_id, t.name"
+                + " from member m left join team t on m.team_id = t.team_id where t.name = ?"
+                + " offset 0 rows fetch next 20 rows only");
+        joinCount = connection.prepareStatement("select count(m.member_id)"
+                + " from member m left join team t on m.team_id = t.team_id where t.name = ?");
+        denormalizedPage = connection.prepareStatement("select m.member_id, m.username, m.age, m.team_id, m.team_name"
+                + " from member m where m.team_name = ? offset 0 rows fetch next 20 rows only");
+        denormalizedCount = connection.prepareStatement("select count(m.member_id)"
+                + " from member m where m.team_name = ?");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public long join() throws SQLException {
+        return pageAndCount(joinPage, joinCount);
+    }
+
+    @Benchmark
+    public long denormalized() throws SQLException {
+        return pageAndCount(denormalizedPage, denormalizedCount);
+    }
+
+    private long pageAndCount(PreparedStatement page, PreparedStatement count) throws SQLException {
+        String teamName = "team" + (teamNo++ % teams + 1);
+        long sum = 0;
+        page.setString(1, teamName);
+        try (ResultSet rs = page.executeQuery()) {
+            while (rs.next()) {
+                sum += rs.getLong(1);
+            }
+        }
+        count.setString(1, teamName);
+        try (ResultSet rs = count.executeQuery()) {
+            rs.next();
+            sum += rs.getLong(1);
+        }
+        return sum;
+    }
+}
@@ -2,8 +2,10 @@ package com.study;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(StudyRuntimeHints.class)
 public class StudyApplication {
 
 	public static void main(String[] args) {
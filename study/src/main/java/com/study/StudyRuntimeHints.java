@@ -0,0 +1,54 @@
+package com.study;
+
+import com.study.controller.MemberFieldsPage;
+import com.study.dto.ChangeBatch;
+import com.study.dto.ChangeDto;
+import com.study.dto.MemberDto;
+import com.study.dto.MemberTeamDto;
+import com.study.dto.UserDto;
+import com.study.monitor.QueryCountInspector;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.data.domain.PageImpl;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * 네이티브 이미지에서 리플렉션으로 접근하는 타입 (스프링 AOT 가 스스로 찾지 못하는 것만)
+ * - 응답 DTO: 컨트롤러 반환 타입이 Page<?> 같은 와일드카드라 Jackson 직렬화 대상을 알 수 없다.
+ * - @QueryProjection / Projections.bean, fields, constructor: Querydsl 이 생성자, setter, 필드를 리플렉션으로 호출한다.
+ *   MemberRepositoryCustomImpl 은 @GenerateProjection 팩토리를 써서 리플렉션이 없다.
+ * - 설정에 클래스 이름으로 적힌 하이버네이트 확장 (hibernate.session_factory.statement_inspector)
+ * - SampledJdbcDataSource 가 Proxy.newProxyInstance 로 만드는 JDK 프록시 (인터페이스 하나씩)
+ */
+public class StudyRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingRegistrar.registerReflectionHints(hints.reflection(),
+                MemberTeamDto.class, MemberDto.class, UserDto.class,
+                ChangeDto.class, ChangeBatch.class, PageImpl.class, MemberFieldsPage.class);
+
+        for (Class<?> dto : new Class<?>[]{MemberTeamDto.class, MemberDto.class, UserDto.class}) {
+            hints.reflection().registerType(dto,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS,
+                    MemberCategory.DECLARED_FIELDS);
+        }
+
+        hints.reflection().registerType(QueryCountInspector.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+        // SampledJdbcDataSource 의 Connection/Statement 래퍼
+        hints.proxies().registerJdkProxy(Connection.class);
+        hints.proxies().registerJdkProxy(Statement.class);
+        hints.proxies().registerJdkProxy(PreparedStatement.class);
+        hints.proxies().registerJdkProxy(CallableStatement.class);
+    }
+}
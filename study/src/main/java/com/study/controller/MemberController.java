@@ -1,36 +1,240 @@
 package com.study.controller;
 
+import com.study.dto.ChangeBatch;
+import com.study.dto.MemberField;
 import com.study.dto.MemberSearchCondition;
 import com.study.dto.MemberTeamDto;
-import com.study.repository.MemberRepository;
+import com.study.entity.DataVersion;
+import com.study.monitor.AdaptiveConcurrencyLimiter;
+import com.study.monitor.MemberSearchRequestEvent;
+import com.study.repository.CountMode;
+import com.study.repository.MemberSearchCoalescer;
+import com.study.repository.TenantSearchLimiter;
+import com.study.service.ChangeFeedService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
-    private final MemberRepository memberRepository;
+    /**
+     * 테넌트는 헤더로만 받는다. 쿼리 파라미터 tenantId 는 무시해서 다른 테넌트를 조회할 수 없게 한다.
+     * 헤더가 없으면 기본 테넌트(TenantSearchLimiter.DEFAULT_TENANT)로 조회한다.
+     */
+    public static final String TENANT_HEADER = "X-Tenant-Id";
+
+    /**
+     * 과부하로 count 를 생략한 응답에 붙는다. totalElements 는 다음 페이지 유무만 반영한 값
+     */
+    public static final String DEGRADED_HEADER = "X-Member-Degraded";
+
+    /**
+     * Page 를 쓸 수 있는 형식, 컨버터 등록 순서 (Jackson JSON, CBOR, MemberPageColumnarConverter)
+     */
+    private static final List<MediaType> PAGE_MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON,
+            new MediaType("application", "*+json"), MediaType.APPLICATION_CBOR,
+            MemberPageColumnarConverter.MEMBER_COLUMNAR);
+
+    private final MemberSearchCoalescer memberSearchCoalescer;
+    private final ChangeFeedService changeFeedService;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ContentNegotiationManager contentNegotiationManager;
+
+    @Value("${member.http.cache-control.v2:no-cache}")
+    private String v2CacheControl;
+    @Value("${member.http.cache-control.v3:no-cache}")
+    private String v3CacheControl;
 
 //    @GetMapping("/v1/members")
 //    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
 //        return memberJpaRepository.search(condition);
 //    }
 
+    /**
+     * fields=memberId,username 처럼 필드를 지정하면 그 컬럼만 조회하고 응답에도 그 필드만 담는다.
+     * 필드를 지정한 응답은 행이 Map 이라 application/x-member-columnar 로는 받을 수 없다. (MemberFieldsPage, 406)
+     */
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition,
-                                              Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+    public ResponseEntity<? extends Page<?>> searchMemberV2(MemberSearchCondition condition,
+                                                            Pageable pageable,
+                                                            @RequestParam(required = false) List<String> fields,
+                                                            @RequestHeader(name = TENANT_HEADER, required = false) String tenantId,
+                                                            NativeWebRequest request)
+            throws HttpMediaTypeNotAcceptableException {
+        condition.setTenantId(tenant(tenantId));
+        if (fields != null) {
+            Set<MemberField> selected = parseFields(fields);
+            return conditional(request, "/v2/members", v2CacheControl, condition.getTenantId(), true,
+                    () -> new MemberFieldsPage(memberSearchCoalescer.searchPageFields(condition, selected, pageable,
+                            CountMode.AUTO)),
+                    () -> new MemberFieldsPage(memberSearchCoalescer.searchPageFields(condition, selected, pageable,
+                            CountMode.NONE)));
+        }
+        return conditional(request, "/v2/members", v2CacheControl, condition.getTenantId(), false,
+                () -> memberSearchCoalescer.searchPage(condition, pageable, CountMode.EXACT),
+                () -> memberSearchCoalescer.searchPage(condition, pageable, CountMode.NONE));
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition,
-                                              Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public ResponseEntity<? extends Page<?>> searchMemberV3(MemberSearchCondition condition,
+                                                            Pageable pageable,
+                                                            @RequestParam(required = false) List<String> fields,
+                                                            @RequestHeader(name = TENANT_HEADER, required = false) String tenantId,
+                                                            NativeWebRequest request)
+            throws HttpMediaTypeNotAcceptableException {
+        condition.setTenantId(tenant(tenantId));
+        if (fields != null) {
+            Set<MemberField> selected = parseFields(fields);
+            return conditional(request, "/v3/members", v3CacheControl, condition.getTenantId(), true,
+                    () -> new MemberFieldsPage(memberSearchCoalescer.searchPageFields(condition, selected, pageable,
+                            CountMode.AUTO)),
+                    () -> new MemberFieldsPage(memberSearchCoalescer.searchPageFields(condition, selected, pageable,
+                            CountMode.NONE)));
+        }
+        return conditional(request, "/v3/members", v3CacheControl, condition.getTenantId(), false,
+                () -> memberSearchCoalescer.searchPage(condition, pageable, CountMode.AUTO),
+                () -> memberSearchCoalescer.searchPage(condition, pageable, CountMode.NONE));
+    }
+
+    /**
+     * 헤더 값은 한도/메트릭/ETag 에 쓰이므로 형식이 맞지 않으면 400
+     */
+    private static String tenant(String tenantId) {
+        String tenant = TenantSearchLimiter.tenantOf(tenantId);
+        if (!TenantSearchLimiter.isValidTenant(tenant)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "잘못된 " + TENANT_HEADER + " 입니다.");
+        }
+        return tenant;
+    }
+
+    private static Set<MemberField> parseFields(List<String> fields) {
+        try {
+            return MemberField.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * since 이후의 회원/팀 변경분, wait(초) 를 주면 변경이 생길 때까지 기다린다. (long-poll)
+     * 응답의 nextSince 를 다음 요청의 since 로 넘기면 된다.
+     */
+    @GetMapping("/members/changes")
+    public DeferredResult<ChangeBatch> memberChanges(@RequestParam(defaultValue = "0") long since,
+                                                     @RequestParam(defaultValue = "100") int limit,
+                                                     @RequestParam(defaultValue = "0") long wait) {
+        return changeFeedService.poll(since, limit, Duration.ofSeconds(wait));
+    }
+
+    @PostMapping("/members/search:batch")
+    public List<List<MemberTeamDto>> searchMemberBatch(@RequestBody List<MemberSearchCondition> conditions,
+                                                       @RequestHeader(name = TENANT_HEADER, required = false) String tenantId) {
+        String tenant = tenant(tenantId);
+        conditions.forEach(condition -> condition.setTenantId(tenant));
+        return memberSearchCoalescer.searchBatch(conditions);
+    }
+
+    /**
+     * JSON 외에 Accept 로 application/x-member-columnar(MemberPageColumnarConverter), application/cbor 응답을 고를 수 있다.
+     * 인스턴스 epoch, 데이터 버전, 테넌트, 응답 형식으로 약한 ETag 를 만들고, If-None-Match 가 같으면 DB 조회 없이 304 를 돌려준다.
+     * 같은 데이터라도 JSON, CBOR, 컬럼 포맷의 바이트가 다르므로 형식마다 ETag 가 달라야 한다. (representation())
+     * 버전은 인스턴스마다 따로 세므로 epoch 가 없으면 재시작 후나 다른 인스턴스에서 같은 버전 숫자가 다른 데이터를 가리킬 수 있다.
+     * 테넌트마다 결과가 다르므로 ETag 에 테넌트를 넣고 Vary 에 X-Tenant-Id 를 넣어, 공유 캐시가 다른 테넌트에 응답을 주지 않게 한다.
+     * 버전은 조회 전에 읽는다. 조회 중 변경이 커밋되면 다음 요청에서 새 버전이 나가므로 오래된 응답이 남지 않는다.
+     * 동시 검색이 AdaptiveConcurrencyLimiter 한도를 넘으면 degraded(count 생략) 로 응답하고, 그것도 넘으면 503
+     * 조회가 타임아웃이나 커넥션 실패로 끝나면 한도를 줄인다.
+     * fields= 요청도 한도를 넘으면 count 를 생략한 페이지(CountMode.NONE)로 응답한다.
+     */
+    private <T> ResponseEntity<T> conditional(NativeWebRequest request, String endpoint, String cacheControl,
+                                              String tenant, boolean fields, Supplier<T> body, Supplier<T> degraded)
+            throws HttpMediaTypeNotAcceptableException {
+        MemberSearchRequestEvent event = MemberSearchRequestEvent.start();
+        String etag = "W/\"" + DataVersion.epoch() + "-" + DataVersion.current() + "-" + tenant
+                + "-" + representation(request, fields) + "\"";
+        if (request.checkNotModified(etag)) {
+            event.commit(endpoint, true);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                    .varyBy(HttpHeaders.ACCEPT, TENANT_HEADER)
+                    .build();
+        }
+        AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.acquire(degraded != null);
+        if (permit == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+        T result;
+        try {
+            result = permit.isDegraded() ? degraded.get() : body.get();
+            permit.success();
+        } catch (QueryTimeoutException | DataAccessResourceFailureException | CannotCreateTransactionException e) {
+            // 쿼리 타임아웃, 커넥션을 얻지 못함(풀 고갈, DB 다운)만 과부하로 본다.
+            // 테넌트 한도, 잘못된 요청, 제약 위반 같은 나머지 실패는 DB 부하와 무관하므로 한도를 줄이지 않는다.
+            permit.dropped();
+            throw e;
+        } finally {
+            permit.release();
+        }
+        event.commit(endpoint, false);
+        if (permit.isDegraded()) {
+            // 전체 개수가 하한값이므로 캐시하지 않는다.
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                    .header(DEGRADED_HEADER, "count")
+                    .varyBy(HttpHeaders.ACCEPT, TENANT_HEADER)
+                    .body(result);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.CACHE_CONTROL, cacheControl)
+                .varyBy(HttpHeaders.ACCEPT, TENANT_HEADER)
+                .body(result);
+    }
+
+    /**
+     * 메시지 컨버터가 고를 형식을 미리 정한다. 요청한 형식(품질 순)마다 쓸 수 있는 형식을 등록 순서로 맞춰 보는, 스프링과 같은 방식
+     * fields= 응답은 컬럼 포맷으로 쓸 수 없다. 맞는 형식이 없으면(이후 406) 어떤 ETag 와도 같지 않은 값을 쓴다.
+     */
+    private String representation(NativeWebRequest request, boolean fields) throws HttpMediaTypeNotAcceptableException {
+        for (MediaType requested : contentNegotiationManager.resolveMediaTypes(request)) {
+            for (MediaType producible : PAGE_MEDIA_TYPES) {
+                if (fields && producible.equals(MemberPageColumnarConverter.MEMBER_COLUMNAR)) {
+                    continue;
+                }
+                if (requested.isCompatibleWith(producible)) {
+                    MediaType selected = requested.isConcrete() ? requested : producible;
+                    return selected.getType() + "/" + selected.getSubtype();
+                }
+            }
+        }
+        return "none";
     }
 }
@@ -0,0 +1,17 @@
+package com.study.controller;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.Map;
+
+/**
+ * fields= 로 고른 필드만 담은 페이지. 행이 Map 이라 MemberPageColumnarConverter 가 지원하지 않는다.
+ * 내용은 같은 PageImpl 이지만 타입이 달라서, Accept 가 application/x-member-columnar 뿐이면 협상 단계에서 406 이 된다.
+ */
+public class MemberFieldsPage extends PageImpl<Map<String, Object>> {
+
+    public MemberFieldsPage(Page<Map<String, Object>> page) {
+        super(page.getContent(), page.getPageable(), page.getTotalElements());
+    }
+}
@@ -0,0 +1,146 @@
+package com.study.controller;
+
+import com.study.dto.MemberTeamDto;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accept: application/x-member-columnar 요청에 Page&lt;MemberTeamDto&gt; 를 열 단위 바이너리로 내려준다.
+ * JSON 처럼 행마다 필드명을 반복하지 않고, 팀명은 사전(dictionary) 인덱스로 한 번만 보낸다.
+ * 중간 트리 없이 DataOutputStream 으로 바로 쓴다.
+ * 컨버터 목록 맨 뒤에 등록해서(MemberWebConfig) Accept 가 없거나 *&#47;* 면 JSON 이 먼저 선택되고, 이 형식은 명시적으로 요청할 때만 쓰인다.
+ *
+ * <pre>
+ * int    formatVersion (2)
+ * int    pageNumber, int pageSize, long totalElements, int rowCount
+ * int    dictionarySize, string teamName * dictionarySize
+ * long   memberId * rowCount
+ * (bool present, string username) * rowCount
+ * int    age * rowCount
+ * int    teamName 사전 인덱스 * rowCount (-1 팀 없음, -2 팀은 있지만 이름 없음)
+ * long   teamId * (팀이 있는 행 수)
+ *
+ * string = int byteLength, UTF-8 bytes (DataOutput.writeUTF 는 modified UTF-8 이고 64KB 를 넘으면 실패해서 쓰지 않는다)
+ * </pre>
+ */
+public class MemberPageColumnarConverter extends AbstractHttpMessageConverter<Page<?>> {
+
+    public static final MediaType MEMBER_COLUMNAR = MediaType.valueOf("application/x-member-columnar");
+    public static final int FORMAT_VERSION = 2;
+    public static final int NO_TEAM = -1;
+    public static final int NO_TEAM_NAME = -2;
+
+    public MemberPageColumnarConverter() {
+        super(MEMBER_COLUMNAR);
+    }
+
+    /**
+     * fields= 응답(MemberFieldsPage)은 쓸 수 없다고 답해서, 쓰는 중에 실패(500)하지 않고 협상에서 406 이 되게 한다.
+     */
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Page.class.isAssignableFrom(clazz) && !MemberFieldsPage.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Page<?> readInternal(Class<? extends Page<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("읽기는 지원하지 않습니다.", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Page<?> page, HttpOutputMessage outputMessage) throws IOException {
+        List<MemberTeamDto> rows = new ArrayList<>(page.getNumberOfElements());
+        for (Object row : page.getContent()) {
+            if (!(row instanceof MemberTeamDto dto)) {
+                throw new HttpMessageNotWritableException(
+                        MEMBER_COLUMNAR + " 는 MemberTeamDto 페이지만 지원합니다: " + row.getClass());
+            }
+            rows.add(dto);
+        }
+        write(page, rows, outputMessage.getBody());
+    }
+
+    static void write(Page<?> page, List<MemberTeamDto> rows, OutputStream body) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(body));
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(page.getNumber());
+        out.writeInt(page.getSize());
+        out.writeLong(page.getTotalElements());
+        out.writeInt(rows.size());
+
+        Map<String, Integer> dictionary = new HashMap<>();
+        int[] teamNameIndexes = new int[rows.size()];
+        List<String> teamNames = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            MemberTeamDto row = rows.get(i);
+            String teamName = row.getTeamName();
+            if (row.getTeamId() == null) {
+                teamNameIndexes[i] = NO_TEAM;
+                continue;
+            }
+            if (teamName == null) {
+                teamNameIndexes[i] = NO_TEAM_NAME;
+                continue;
+            }
+            Integer index = dictionary.get(teamName);
+            if (index == null) {
+                index = teamNames.size();
+                dictionary.put(teamName, index);
+                teamNames.add(teamName);
+            }
+            teamNameIndexes[i] = index;
+        }
+        out.writeInt(teamNames.size());
+        for (String teamName : teamNames) {
+            writeString(out, teamName);
+        }
+
+        for (MemberTeamDto row : rows) {
+            out.writeLong(row.getMemberId());
+        }
+        for (MemberTeamDto row : rows) {
+            out.writeBoolean(row.getUsername() != null);
+            if (row.getUsername() != null) {
+                writeString(out, row.getUsername());
+            }
+        }
+        for (MemberTeamDto row : rows) {
+            out.writeInt(row.getAge());
+        }
+        for (int index : teamNameIndexes) {
+            out.writeInt(index);
+        }
+        for (MemberTeamDto row : rows) {
+            if (row.getTeamId() != null) {
+                out.writeLong(row.getTeamId());
+            }
+        }
+        out.flush();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,20 @@
+package com.study.controller;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * MemberPageColumnarConverter 는 모든 Page 를 지원한다고 답하므로, 빈으로 등록하면 기본 컨버터(Jackson)보다 앞에 놓여
+ * Accept 가 없거나 *&#47;* 인 요청까지 바이너리로 응답한다. 기본 컨버터 뒤에 붙여서 명시적으로 요청할 때만 선택되게 한다.
+ */
+@Configuration
+public class MemberWebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MemberPageColumnarConverter());
+    }
+}
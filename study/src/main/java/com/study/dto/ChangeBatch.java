@@ -0,0 +1,17 @@
+package com.study.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ChangeBatch {
+    private List<ChangeDto> changes;
+
+    /**
+     * 다음 요청의 since
+     */
+    private long nextSince;
+}
@@ -0,0 +1,18 @@
+package com.study.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ChangeDto {
+    private long seq;
+    private String entityType;
+    private Long entityId;
+    private String operation;
+
+    /**
+     * 회원 변경이면 읽는 시점의 현재 값, 그 사이 삭제됐거나 팀 변경이면 null
+     */
+    private MemberTeamDto member;
+}
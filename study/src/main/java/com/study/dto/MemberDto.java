@@ -1,9 +1,11 @@
 package com.study.dto;
 
 import com.querydsl.core.annotations.QueryProjection;
+import com.study.projection.GenerateProjection;
 import lombok.Data;
 
 @Data
+@GenerateProjection
 public class MemberDto {
     private String username;
     private int age;
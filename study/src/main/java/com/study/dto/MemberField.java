@@ -0,0 +1,62 @@
+package com.study.dto;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * fields= 파라미터로 고를 수 있는 MemberTeamDto 의 필드
+ */
+public enum MemberField {
+    MEMBER_ID("memberId"),
+    USERNAME("username"),
+    AGE("age"),
+    TEAM_ID("teamId"),
+    TEAM_NAME("teamName");
+
+    private final String fieldName;
+
+    MemberField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * 이미 읽은 MemberTeamDto 에서 이 필드 값을 꺼낸다. (샤딩일 때 필드 지정 조회)
+     */
+    public Object valueOf(MemberTeamDto dto) {
+        return switch (this) {
+            case MEMBER_ID -> dto.getMemberId();
+            case USERNAME -> dto.getUsername();
+            case AGE -> dto.getAge();
+            case TEAM_ID -> dto.getTeamId();
+            case TEAM_NAME -> dto.getTeamName();
+        };
+    }
+
+    /**
+     * "memberId,username" 처럼 필드명으로 받은 목록을 변환, 순서는 선언 순서로 고정된다.
+     */
+    public static Set<MemberField> parse(Collection<String> fieldNames) {
+        EnumSet<MemberField> fields = EnumSet.noneOf(MemberField.class);
+        for (String fieldName : fieldNames) {
+            fields.add(of(fieldName.trim()));
+        }
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("필드를 하나 이상 지정해야 합니다.");
+        }
+        return fields;
+    }
+
+    private static MemberField of(String fieldName) {
+        for (MemberField field : values()) {
+            if (field.fieldName.equals(fieldName)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("알 수 없는 필드입니다: " + fieldName);
+    }
+}
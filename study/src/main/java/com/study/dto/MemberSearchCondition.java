@@ -4,8 +4,13 @@ import lombok.Data;
 
 @Data
 public class MemberSearchCondition {
-    //회원명, 팀명, 나이(ageGoe, ageLoe)
+    //테넌트, 컨트롤러가 X-Tenant-Id 헤더로 채운다. 없으면 기본 테넌트만 조회한다.
+    private String tenantId;
+
+    //회원명(일치, 부분, 접두), 팀명, 나이(ageGoe, ageLoe)
     private String username;
+    private String usernameContains;
+    private String usernamePrefix;
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
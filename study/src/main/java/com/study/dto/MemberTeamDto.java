@@ -1,6 +1,6 @@
 package com.study.dto;
 
-import com.querydsl.core.annotations.QueryProjection;
+import com.study.projection.GenerateProjection;
 import lombok.Data;
 
 @Data
@@ -14,8 +14,9 @@ public class MemberTeamDto {
     /**
      *  @QueryProjection 을 사용하면 해당 DTO가 Querydsl을 의존하게 된다. 이런 의존이 싫으면, 해당
      * 에노테이션을 제거하고, Projection.bean(), fields(), constructor() 을 사용하면 된다.
+     * 여기서는 @GenerateProjection 으로 MemberTeamDtoProjection 을 생성해서, 의존 없이 리플렉션도 쓰지 않는다.
      */
-    @QueryProjection
+    @GenerateProjection
     public MemberTeamDto(Long memberId, String username, int age, Long teamId,
                          String teamName) {
         this.memberId = memberId;
@@ -1,8 +1,10 @@
 package com.study.dto;
 
+import com.study.projection.GenerateProjection;
 import lombok.Data;
 
 @Data
+@GenerateProjection
 public class UserDto {
     private String name;
     private int age;
@@ -0,0 +1,41 @@
+package com.study.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * 회원/팀 변경 아웃박스, ChangeOutbox 가 JDBC 로 직접 쓰고 ChangeFeedService 가 seq 순으로 읽는다.
+ */
+@Entity
+@Table(name = "change_event", indexes = @Index(name = "idx_change_event_changed_at", columnList = "changed_at"))
+@SequenceGenerator(name = "change_event_seq", sequenceName = "change_event_seq", allocationSize = 1)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class ChangeEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_event_seq")
+    private Long seq;
+
+    /**
+     * Member, Team
+     */
+    @Column(name = "entity_type", nullable = false)
+    private String entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ChangeOperation operation;
+
+    @Column(name = "changed_at", nullable = false)
+    private LocalDateTime changedAt;
+}
@@ -0,0 +1,5 @@
+package com.study.entity;
+
+public enum ChangeOperation {
+    INSERT, UPDATE, DELETE
+}
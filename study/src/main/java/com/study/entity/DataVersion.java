@@ -0,0 +1,65 @@
+package com.study.entity;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 회원/팀 데이터가 바뀔 때마다 증가하는 버전, 조회 응답의 ETag 로 사용한다.
+ * 이 노드의 영속성 컨텍스트를 거친 변경은 DataVersionListener 가 반영하고,
+ * 벌크 연산은 직접 incrementAfterCommit() 을 호출해야 한다.
+ * 버전은 JVM 마다 0 부터 다시 세므로, 재시작이나 다른 인스턴스의 같은 숫자와 구분하도록 ETag 에는 epoch 를 함께 넣는다.
+ */
+public final class DataVersion {
+
+    private static final AtomicLong VERSION = new AtomicLong();
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36)
+            + Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+
+    private DataVersion() {}
+
+    /**
+     * 이 인스턴스(부팅)를 구분하는 값
+     */
+    public static String epoch() {
+        return EPOCH;
+    }
+
+    public static long current() {
+        return VERSION.get();
+    }
+
+    public static long increment() {
+        return VERSION.incrementAndGet();
+    }
+
+    /**
+     * 커밋 전에 올리면 다른 요청이 새 버전으로 이전 데이터를 읽어 캐시할 수 있으므로, 커밋 이후에 올린다.
+     * 트랜잭션 밖이면 바로 올린다.
+     * 트랜잭션당 한 번만 등록한다. 등록 여부는 현재 트랜잭션의 동기화 목록으로 판단하는데, 이 목록은 REQUIRES_NEW 로
+     * 바깥 트랜잭션이 일시 중단되면 함께 치워지므로 안쪽 트랜잭션도 따로 등록하고 자기 커밋에 버전을 올린다.
+     * (bindResource 로 표시하면 중단 중에도 남아 있어서, 안쪽 트랜잭션의 변경이 바깥 트랜잭션 결과에 묶인다.)
+     */
+    public static void incrementAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            increment();
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof IncrementAfterCommit) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new IncrementAfterCommit());
+    }
+
+    private static final class IncrementAfterCommit implements TransactionSynchronization {
+
+        @Override
+        public void afterCommit() {
+            increment();
+        }
+    }
+}
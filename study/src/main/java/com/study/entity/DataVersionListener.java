@@ -0,0 +1,18 @@
+package com.study.entity;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * 엔티티 변경 시 커밋 이후 DataVersion 을 올린다.
+ */
+public class DataVersionListener {
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void changed(Object entity) {
+        DataVersion.incrementAfterCommit();
+    }
+}
@@ -2,8 +2,18 @@ package com.study.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.Hibernate;
+
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
+@EntityListeners({MemberUsernameGramListener.class, DataVersionListener.class})
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_name", columnList = "team_name"),
+        @Index(name = "idx_member_tenant_username", columnList = "tenant_id, username")
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -17,10 +27,44 @@ public class Member {
     private String username;
     private int age;
 
+    /**
+     * 테넌트 구분, null 이면 기본 테넌트
+     */
+    @Column(name = "tenant_id")
+    private String tenantId;
+
+    /**
+     * 낙관적 락, 동시에 같은 엔티티를 수정하면 늦게 커밋하는 쪽이 실패한다.
+     */
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
+    @Setter(AccessLevel.NONE)
     private Team team;
 
+    /**
+     * 팀명 비정규화, team 조인 없이 팀명으로 검색/조회하기 위함 (member.search.denormalized-team-name)
+     * changeTeam(), MemberRepository.moveMembers(), updateTeamName() 이 맞춰준다.
+     */
+    @Column(name = "team_name")
+    @Setter(AccessLevel.NONE)
+    private String teamName;
+
+    /**
+     * 회원명 부분 검색용 n-gram, 리스너가 저장/변경 시점에 채운다.
+     */
+    @ElementCollection
+    @CollectionTable(name = "member_username_gram",
+            joinColumns = @JoinColumn(name = "member_id"),
+            indexes = @Index(name = "idx_member_username_gram", columnList = "gram"))
+    @Column(name = "gram")
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Set<String> usernameGrams = new HashSet<>();
+
     public Member(String username) {
         this(username, 0);
     }
@@ -37,9 +81,32 @@ public class Member {
         }
     }
 
-    private void changeTeam(Team team) {
+    /**
+     * 양쪽 연관관계를 함께 바꾸되, 팀의 members 컬렉션은 초기화하지 않는다.
+     * - 추가: mappedBy 쪽 bag 은 초기화 전이면 add 를 큐에 쌓았다가 로딩 시점에 합친다.
+     * - 제거: bag 의 remove 는 컬렉션을 초기화하므로, 이미 로딩된 경우에만 뺀다.
+     *   이전 팀이 로딩 전 프록시면 getMembers() 호출만으로 팀 행을 읽으므로 팀부터 확인한다.
+     *   로딩 전이면 flush 후 조회할 때 DB 기준으로 맞춰진다.
+     * 여러 회원을 한 번에 옮길 때는 MemberRepository.moveMembers() 를 쓴다.
+     */
+    public void changeTeam(Team team) {
+        if (this.team != null && Hibernate.isInitialized(this.team)
+                && Hibernate.isInitialized(this.team.getMembers())) {
+            this.team.getMembers().remove(this);
+        }
         this.team = team;
-        team.getMembers().add(this);
+        this.teamName = team == null ? null : team.getName();
+        if (team != null) {
+            team.getMembers().add(this);
+        }
+    }
+
+    void syncUsernameGrams() {
+        Set<String> grams = UsernameGram.of(username);
+        if (!usernameGrams.equals(grams)) {
+            usernameGrams.retainAll(grams);
+            usernameGrams.addAll(grams);
+        }
     }
     /**
      * , 양쪽 방향에 모두 값을 입력해주는 것이 가장 안전합니다.
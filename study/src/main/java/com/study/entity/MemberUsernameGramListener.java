@@ -0,0 +1,17 @@
+package com.study.entity;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+
+/**
+ * 회원 저장/변경 시점에 n-gram 테이블(member_username_gram)을 회원명과 맞춘다.
+ * 벌크 연산(update member set username = ...)은 영속성 컨텍스트를 거치지 않으므로 반영되지 않는다.
+ */
+public class MemberUsernameGramListener {
+
+    @PrePersist
+    @PreUpdate
+    public void syncUsernameGrams(Member member) {
+        member.syncUsernameGrams();
+    }
+}
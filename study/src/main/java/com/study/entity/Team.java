@@ -2,11 +2,14 @@ package com.study.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Formula;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(DataVersionListener.class)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -16,12 +19,44 @@ public class Team {
     @GeneratedValue
     @Column(name = "team_id")
     private Long id;
+
+    /**
+     * member.team_name 에 비정규화되어 있으므로 setter 를 두지 않는다. 변경은 TeamService.rename() 으로
+     */
+    @Setter(AccessLevel.NONE)
     private String name;
 
+    /**
+     * 낙관적 락, 동시에 같은 엔티티를 수정하면 늦게 커밋하는 쪽이 실패한다.
+     */
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
+    /**
+     * 회원이 들어오고 나갈 때마다 팀 버전이 올라가면 인기 팀에서 낙관적 락 충돌과 팀 UPDATE 가 잦아지므로 버전 대상에서 뺀다.
+     */
     @OneToMany(mappedBy = "team")
+    @OptimisticLock(excluded = true)
     private List<Member> members = new ArrayList<>();
 
+    /**
+     * members 컬렉션을 초기화하지 않고 구하는 회원 수
+     * LAZY 는 바이트코드 향상(build.gradle 의 hibernate.enhancement)으로 동작해서, 처음 읽을 때 따로 조회한다.
+     */
+    @Formula("(select count(*) from member m where m.team_id = team_id)")
+    @Basic(fetch = FetchType.LAZY)
+    @Setter(AccessLevel.NONE)
+    private long memberCount;
+
     public Team(String name) {
         this.name = name;
     }
+
+    /**
+     * 팀 엔티티의 이름만 바꾼다. 회원의 팀명은 MemberRepository.updateTeamName() 이 맞추므로 TeamService.rename() 에서만 호출한다.
+     */
+    public void rename(String name) {
+        this.name = name;
+    }
 }
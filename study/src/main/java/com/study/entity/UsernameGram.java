@@ -0,0 +1,28 @@
+package com.study.entity;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * 회원명 부분 검색(contains)용 n-gram 분해
+ * like '%x%' 는 인덱스를 탈 수 없으므로, 회원명을 SIZE 글자 단위로 잘라 별도 테이블에 저장하고
+ * 검색어의 gram 을 모두 가진 회원만 추려낸 뒤 원래 조건으로 한 번 더 확인한다.
+ */
+public final class UsernameGram {
+
+    public static final int SIZE = 3;
+
+    private UsernameGram() {}
+
+    public static Set<String> of(String value) {
+        if (value == null || value.length() < SIZE) {
+            return Collections.emptySet();
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + SIZE <= value.length(); i++) {
+            grams.add(value.substring(i, i + SIZE));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,194 @@
+package com.study.monitor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 검색 동시 실행 한도를 응답 시간에 맞춰 조절한다. (Gradient 방식)
+ * 평소 지연(longRtt, 지수 이동 평균)과 이번 지연(shortRtt)의 비율로 한도를 줄이거나 늘린다.
+ * DB 가 느려지면 한도가 줄어 요청이 톰캣 스레드에 쌓이기 전에 거절되고, 회복되면 다시 늘어난다.
+ * 타임아웃이나 DB 오류로 실패한 요청은 지연 표본이 없으므로, 한도를 DROP_BACKOFF 배로 바로 줄인다. (dropped)
+ *
+ * newLimit = limit * clamp(tolerance * longRtt / shortRtt, 0.5, 1.0) + queueSize
+ * limit = limit * (1 - smoothing) + newLimit * smoothing
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_WINDOW = 600;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final boolean enabled;
+    private final double degradedHeadroom;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private double longRtt;
+
+    private final Counter rejectedCount;
+    private final Counter degradedCount;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry,
+                                      @Value("${member.load-shedding.enabled:true}") boolean enabled,
+                                      @Value("${member.load-shedding.initial-limit:20}") int initialLimit,
+                                      @Value("${member.load-shedding.min-limit:2}") int minLimit,
+                                      @Value("${member.load-shedding.max-limit:200}") int maxLimit,
+                                      @Value("${member.load-shedding.degraded-headroom:0.25}") double degradedHeadroom) {
+        this(meterRegistry, enabled, initialLimit, minLimit, maxLimit, degradedHeadroom, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry, boolean enabled, int initialLimit, int minLimit,
+                               int maxLimit, double degradedHeadroom, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.degradedHeadroom = degradedHeadroom;
+        this.nanoClock = nanoClock;
+        this.rejectedCount = meterRegistry.counter("member.search.shed", "outcome", "rejected");
+        this.degradedCount = meterRegistry.counter("member.search.shed", "outcome", "degraded");
+        Gauge.builder("member.search.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .register(meterRegistry);
+        Gauge.builder("member.search.concurrency.inflight", inFlight, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 한도 안이면 Permit, 넘으면 degradable 일 때만 limit * (1 + degraded-headroom) 까지 가벼운 응답(count 생략 등)용 Permit
+     * 그것도 넘으면 null
+     */
+    public Permit acquire(boolean degradable) {
+        if (!enabled) {
+            return new Permit(false);
+        }
+        if (tryIncrement(getLimit())) {
+            return new Permit(false);
+        }
+        if (degradable && tryIncrement((int) Math.ceil(getLimit() * (1 + degradedHeadroom)))) {
+            degradedCount.increment();
+            return new Permit(true);
+        }
+        rejectedCount.increment();
+        return null;
+    }
+
+    private boolean tryIncrement(int max) {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= max) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart) {
+        double shortRtt = Math.max(rttNanos, 1);
+        if (longRtt == 0) {
+            longRtt = shortRtt;
+        } else {
+            longRtt += (shortRtt - longRtt) * 2.0 / (LONG_WINDOW + 1);
+        }
+        // 느려진 상태가 길어져 평소 지연이 올라가 버린 뒤 회복되면, 평소 지연을 빨리 따라 내린다.
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double queueSize = Math.sqrt(limit);
+        double newLimit = limit * gradient + queueSize;
+        // 한도의 절반도 쓰지 않는 동안에는 늘리지 않는다. (부하가 없어서 빠른 것일 뿐)
+        if (newLimit > limit && inFlightAtStart < limit / 2) {
+            return;
+        }
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    private synchronized void onDrop() {
+        limit = Math.max(minLimit, limit * DROP_BACKOFF);
+    }
+
+    /**
+     * 한 번의 검색 실행, success(), dropped(), release() 중 하나를 꼭 호출한다.
+     */
+    public class Permit {
+
+        private final boolean degraded;
+        private final long start;
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(boolean degraded) {
+            this.degraded = degraded;
+            this.start = nanoClock.getAsLong();
+            this.inFlightAtStart = inFlight.get();
+        }
+
+        /**
+         * 한도를 넘어 가벼운 응답으로 처리해야 하는 요청
+         */
+        public boolean isDegraded() {
+            return degraded;
+        }
+
+        /**
+         * 정상 완료, 지연을 한도 계산에 반영한다. (가벼운 응답은 지연이 달라서 반영하지 않는다)
+         */
+        public void success() {
+            if (release0() && enabled && !degraded) {
+                onSample(nanoClock.getAsLong() - start, inFlightAtStart);
+            }
+        }
+
+        /**
+         * 타임아웃, DB 오류 등 과부하로 볼 수 있는 실패, 한도를 줄이고 반납한다.
+         */
+        public void dropped() {
+            if (release0() && enabled) {
+                onDrop();
+            }
+        }
+
+        /**
+         * 지연을 반영하지 않고 반납 (클라이언트 오류 등 DB 상태와 무관한 실패)
+         */
+        public void release() {
+            release0();
+        }
+
+        private boolean release0() {
+            if (released) {
+                return false;
+            }
+            released = true;
+            if (enabled) {
+                inFlight.decrementAndGet();
+            }
+            return true;
+        }
+    }
+}
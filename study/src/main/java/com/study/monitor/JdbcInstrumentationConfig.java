@@ -0,0 +1,41 @@
+package com.study.monitor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * member.jdbc.instrumentation
+ * - p6spy(기본): p6spy 로 모든 SQL 을 로그로 남긴다. 개발용
+ * - sampled: p6spy 를 끄고(decorator.datasource.enabled=false) SampledJdbcDataSource 로 감싼다. 운영용
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.jdbc.instrumentation", havingValue = "sampled")
+public class JdbcInstrumentationConfig {
+
+    @Bean
+    public SampledJdbcRecorder sampledJdbcRecorder(@Value("${member.jdbc.sample-rate:0.01}") double sampleRate,
+                                                   SlowStatementLog slowStatementLog,
+                                                   MeterRegistry meterRegistry) {
+        return new SampledJdbcRecorder(sampleRate, slowStatementLog, meterRegistry);
+    }
+
+    @Bean
+    public static BeanPostProcessor sampledJdbcDataSourcePostProcessor(ObjectProvider<SampledJdbcRecorder> recorder) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof SampledJdbcDataSource)) {
+                    return new SampledJdbcDataSource(dataSource, recorder.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
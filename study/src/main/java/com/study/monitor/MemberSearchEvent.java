@@ -0,0 +1,103 @@
+package com.study.monitor;
+
+import com.study.dto.MemberSearchCondition;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.springframework.data.domain.Pageable;
+
+import java.util.StringJoiner;
+
+/**
+ * MemberRepositoryCustomImpl 검색 한 번에 대한 JFR 이벤트 (src/main/resources/jfr/member.jfc)
+ * 기록 중이 아니면 isEnabled() 가 false 이므로 시간 측정과 필드 채우기를 모두 건너뛴다.
+ */
+@Name("com.study.MemberSearch")
+@Label("Member Search")
+@Category({"Study", "Repository"})
+@Description("회원 검색 쿼리의 조건 형태, 행 수, 컨텐츠/카운트 쿼리 시간")
+@StackTrace(false)
+public class MemberSearchEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Filter Shape")
+    @Description("값이 있는 검색 조건 필드")
+    String filterShape;
+
+    @Label("Row Count")
+    int rowCount;
+
+    @Label("Content Query")
+    @Timespan(Timespan.NANOSECONDS)
+    long contentQueryNanos;
+
+    @Label("Count Query")
+    @Description("count 쿼리를 생략했으면 0")
+    @Timespan(Timespan.NANOSECONDS)
+    long countQueryNanos;
+
+    @Label("Page Offset")
+    long pageOffset;
+
+    @Label("Page Size")
+    int pageSize;
+
+    public static MemberSearchEvent start() {
+        MemberSearchEvent event = new MemberSearchEvent();
+        event.begin();
+        return event;
+    }
+
+    public long now() {
+        return isEnabled() ? System.nanoTime() : 0;
+    }
+
+    public void contentQueried(long startNanos, int rowCount) {
+        if (isEnabled()) {
+            this.contentQueryNanos = System.nanoTime() - startNanos;
+            this.rowCount = rowCount;
+        }
+    }
+
+    public void countQueried(long startNanos) {
+        if (isEnabled()) {
+            this.countQueryNanos = System.nanoTime() - startNanos;
+        }
+    }
+
+    public void commit(String method, MemberSearchCondition condition, Pageable pageable) {
+        if (!shouldCommit()) {
+            return;
+        }
+        this.method = method;
+        this.filterShape = filterShape(condition);
+        if (pageable != null && pageable.isPaged()) {
+            this.pageOffset = pageable.getOffset();
+            this.pageSize = pageable.getPageSize();
+        }
+        commit();
+    }
+
+    static String filterShape(MemberSearchCondition condition) {
+        StringJoiner shape = new StringJoiner(",");
+        addIfPresent(shape, "username", condition.getUsername());
+        addIfPresent(shape, "usernameContains", condition.getUsernameContains());
+        addIfPresent(shape, "usernamePrefix", condition.getUsernamePrefix());
+        addIfPresent(shape, "teamName", condition.getTeamName());
+        addIfPresent(shape, "ageGoe", condition.getAgeGoe());
+        addIfPresent(shape, "ageLoe", condition.getAgeLoe());
+        return shape.toString();
+    }
+
+    private static void addIfPresent(StringJoiner shape, String field, Object value) {
+        if (value != null) {
+            shape.add(field);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.study.monitor;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * MemberController 검색 요청 하나에 대한 JFR 이벤트, 같은 스레드의 MemberSearchEvent 를 감싼다.
+ */
+@Name("com.study.MemberSearchRequest")
+@Label("Member Search Request")
+@Category({"Study", "Controller"})
+@StackTrace(false)
+public class MemberSearchRequestEvent extends Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Not Modified")
+    boolean notModified;
+
+    public static MemberSearchRequestEvent start() {
+        MemberSearchRequestEvent event = new MemberSearchRequestEvent();
+        event.begin();
+        return event;
+    }
+
+    public void commit(String endpoint, boolean notModified) {
+        if (shouldCommit()) {
+            this.endpoint = endpoint;
+            this.notModified = notModified;
+            commit();
+        }
+    }
+}
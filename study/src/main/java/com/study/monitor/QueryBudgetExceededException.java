@@ -0,0 +1,14 @@
+package com.study.monitor;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class QueryBudgetExceededException extends RuntimeException {
+
+    public QueryBudgetExceededException(QueryScope scope, String sql) {
+        super("쿼리 예산 초과 [" + scope.getName() + "] statements=" + scope.getStatements()
+                + "/" + scope.getMaxStatements() + ", elapsed=" + scope.getElapsedMillis()
+                + "ms/" + scope.getMaxMillis() + "ms, next=" + sql);
+    }
+}
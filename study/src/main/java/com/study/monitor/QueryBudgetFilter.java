@@ -0,0 +1,56 @@
+package com.study.monitor;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * 요청마다 QueryScope 를 열어 쿼리 예산(SQL 수, 시간)을 확인한다.
+ * mode=log 는 초과한 요청을 로그로 남기고, mode=reject 는 예산을 넘는 다음 SQL 을 막아 503 으로 끝낸다.
+ */
+@Slf4j
+@Component
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final int maxStatements;
+    private final long maxMillis;
+    private final boolean reject;
+
+    public QueryBudgetFilter(@Value("${member.query-guard.enabled:true}") boolean enabled,
+                             @Value("${member.query-guard.max-statements:10}") int maxStatements,
+                             @Value("${member.query-guard.max-time:2s}") Duration maxTime,
+                             @Value("${member.query-guard.mode:log}") String mode) {
+        this.enabled = enabled;
+        this.maxStatements = maxStatements;
+        this.maxMillis = maxTime.toMillis();
+        this.reject = "reject".equalsIgnoreCase(mode);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        try (QueryScope scope = QueryScope.open(request.getRequestURI(), maxStatements, maxMillis, reject)) {
+            filterChain.doFilter(request, response);
+            if (scope.isExceeded()) {
+                log.warn("query budget exceeded [{} {}] statements={}/{}, rows={}, jdbc={}ms, elapsed={}ms/{}ms",
+                        request.getMethod(), request.getRequestURI(),
+                        scope.getStatements(), maxStatements, scope.getRows(),
+                        scope.getJdbcMillis(), scope.getElapsedMillis(), maxMillis);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.study.monitor;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/querycache
+ * Hibernate 쿼리 플랜 캐시 적중률과 SQL 준비 횟수, H2 의 세션별 SQL 캐시(QUERY_CACHE_SIZE) 크기를 보여준다.
+ * 검색 조건 조합마다 JPQL 이 달라지므로, distinctQueries 가 planCacheMaxSize 에 가까우면 캐시를 늘린다.
+ * <p>
+ * hibernate.generate_statistics 가 켜져 있으면(개발) 시작 이후 누적값을 보여준다.
+ * 꺼져 있으면(운영) member.query-cache.sample-interval 마다 sample-window 동안만 통계를 켜고, 마지막 표본 구간의 값을 보여준다.
+ * 통계 수집 비용은 표본 구간에만 든다. sample-interval 이 0 이면 표본도 뜨지 않는다.
+ * <p>
+ * H2 는 QUERY_CACHE_SIZE 캐시의 적중 횟수를 노출하지 않아 크기만 보여준다. 세션(커넥션)마다 잡히므로
+ * member.jdbc.statement-cache-size 는 MAX_STATEMENT_CACHE_SIZE 이하로 제한하고, DB 가 실제로 쓰는 값을 함께 보여준다.
+ * (이미 열린 DB 에는 URL 의 값이 적용되지 않는다)
+ */
+@Component
+@Endpoint(id = "querycache")
+public class QueryCacheEndpoint {
+
+    static final int MAX_STATEMENT_CACHE_SIZE = 256;
+
+    private final Statistics statistics;
+    private final JdbcTemplate jdbcTemplate;
+    private final int planCacheMaxSize;
+    private final int statementCacheSize;
+    private final Duration sampleInterval;
+    private final Duration sampleWindow;
+    private final boolean continuous;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "query-cache-sample");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile QueryCacheSample lastSample;
+
+    public QueryCacheEndpoint(EntityManagerFactory entityManagerFactory,
+                              JdbcTemplate jdbcTemplate,
+                              @Value("${spring.jpa.properties.hibernate.query.plan_cache_max_size:2048}") int planCacheMaxSize,
+                              @Value("${member.jdbc.statement-cache-size:8}") int statementCacheSize,
+                              @Value("${member.query-cache.sample-interval:0s}") Duration sampleInterval,
+                              @Value("${member.query-cache.sample-window:30s}") Duration sampleWindow) {
+        if (statementCacheSize < 0 || statementCacheSize > MAX_STATEMENT_CACHE_SIZE) {
+            throw new IllegalArgumentException("member.jdbc.statement-cache-size 는 0 ~ " + MAX_STATEMENT_CACHE_SIZE
+                    + " 이어야 합니다. statementCacheSize=" + statementCacheSize);
+        }
+        if (!sampleInterval.isZero() && sampleWindow.compareTo(sampleInterval) >= 0) {
+            throw new IllegalArgumentException("sample-window 는 sample-interval 보다 짧아야 합니다. window="
+                    + sampleWindow + ", interval=" + sampleInterval);
+        }
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.jdbcTemplate = jdbcTemplate;
+        this.planCacheMaxSize = planCacheMaxSize;
+        this.statementCacheSize = statementCacheSize;
+        this.sampleInterval = sampleInterval;
+        this.sampleWindow = sampleWindow;
+        this.continuous = statistics.isStatisticsEnabled();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (continuous || sampleInterval.isZero()) {
+            return;
+        }
+        scheduler.scheduleAtFixedRate(this::openSample,
+                sampleInterval.toMillis(), sampleInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdownNow();
+    }
+
+    @ReadOperation
+    public QueryCacheReport report() {
+        QueryCacheSample sample = continuous ? snapshot() : lastSample;
+        return new QueryCacheReport(
+                continuous ? "continuous" : sample == null ? "none" : "sample",
+                planCacheMaxSize,
+                sample,
+                statementCacheSize,
+                effectiveStatementCacheSize());
+    }
+
+    /**
+     * 통계를 비우고 켠다. sample-window 뒤에 closeSample 이 값을 읽고 다시 끈다.
+     */
+    void openSample() {
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+        scheduler.schedule(this::closeSample, sampleWindow.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void closeSample() {
+        lastSample = snapshot();
+        statistics.setStatisticsEnabled(false);
+    }
+
+    private QueryCacheSample snapshot() {
+        long hits = statistics.getQueryPlanCacheHitCount();
+        long misses = statistics.getQueryPlanCacheMissCount();
+        return new QueryCacheSample(
+                statistics.getStart(),
+                Instant.now(),
+                hits,
+                misses,
+                ratio(hits, misses),
+                statistics.getQueries().length,
+                statistics.getPrepareStatementCount());
+    }
+
+    private Integer effectiveStatementCacheSize() {
+        return jdbcTemplate.query(
+                "select setting_value from information_schema.settings where setting_name = 'QUERY_CACHE_SIZE'",
+                rs -> rs.next() ? Integer.valueOf(rs.getString(1)) : null);
+    }
+
+    private static double ratio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * @param source continuous: 시작 이후 누적, sample: 마지막 표본 구간, none: 아직 표본이 없거나 표본을 뜨지 않는다.
+     * @param statementCacheSize 설정값(member.jdbc.statement-cache-size)
+     * @param effectiveStatementCacheSize DB 가 실제로 쓰는 값
+     */
+    public record QueryCacheReport(String source,
+                                   int planCacheMaxSize,
+                                   QueryCacheSample planCache,
+                                   int statementCacheSize,
+                                   Integer effectiveStatementCacheSize) {
+    }
+
+    public record QueryCacheSample(Instant from,
+                                   Instant to,
+                                   long hits,
+                                   long misses,
+                                   double hitRatio,
+                                   int distinctQueries,
+                                   long preparedStatements) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.study.monitor;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate 가 준비하는 모든 SQL 을 현재 QueryScope 에 센다.
+ * hibernate.session_factory.statement_inspector 로 등록한다.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryScope scope = QueryScope.current();
+        if (scope != null) {
+            scope.onStatement(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,41 @@
+package com.study.monitor;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 이벤트로 JDBC 실행 시간과 읽은 행 수를 현재 QueryScope 에 더하고, 느린 쿼리를 SlowStatementLog 에 남긴다.
+ * 느린 쿼리는 바인딩 값이 채워진 SQL 과 이를 호출한 리포지토리 메서드를 함께 기록한다.
+ * member.jdbc.instrumentation=sampled 로 p6spy 를 끄면 호출되지 않는다. (SampledJdbcRecorder 참고)
+ */
+@Component
+@RequiredArgsConstructor
+public class QueryMetricsListener extends SimpleJdbcEventListener {
+
+    private final SlowStatementLog slowStatementLog;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryScope scope = QueryScope.current();
+        if (scope != null) {
+            scope.onExecuted(timeElapsedNanos);
+        }
+        if (slowStatementLog.isSlow(timeElapsedNanos)) {
+            slowStatementLog.record(timeElapsedNanos, statementInformation.getSqlWithValues(), null);
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos,
+                                     boolean hasNext, SQLException e) {
+        QueryScope scope = QueryScope.current();
+        if (hasNext && scope != null) {
+            scope.onRow();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.study.monitor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 요청(또는 테스트) 하나에서 실행된 SQL 수, 읽은 행 수, JDBC 시간을 모은다.
+ * 현재 스레드에 묶이며, QueryCountInspector 와 QueryMetricsListener 가 값을 채운다.
+ * 다른 스레드에서 실행하는 작업은 propagate 로 감싸야 같은 스코프에 집계된다. 그래서 카운터는 여러 스레드에서 더할 수 있게 둔다.
+ *
+ * <pre>
+ * try (QueryScope scope = QueryScope.open("search")) {
+ *     memberRepository.search(condition);
+ *     assertThat(scope.getStatements()).isEqualTo(1);
+ * }
+ * </pre>
+ */
+public class QueryScope implements AutoCloseable {
+
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<>();
+
+    private final String name;
+    private final int maxStatements;
+    private final long maxMillis;
+    private final boolean reject;
+    private final QueryScope parent;
+    private final long startNanos = System.nanoTime();
+
+    private final AtomicInteger statements = new AtomicInteger();
+    private final AtomicLong rows = new AtomicLong();
+    private final AtomicLong jdbcNanos = new AtomicLong();
+
+    private QueryScope(String name, int maxStatements, long maxMillis, boolean reject, QueryScope parent) {
+        this.name = name;
+        this.maxStatements = maxStatements;
+        this.maxMillis = maxMillis;
+        this.reject = reject;
+        this.parent = parent;
+    }
+
+    /**
+     * 제한 없이 집계만 한다.
+     */
+    public static QueryScope open(String name) {
+        return open(name, Integer.MAX_VALUE, Long.MAX_VALUE, false);
+    }
+
+    /**
+     * reject 가 true 면 제한을 넘는 다음 SQL 실행 시점에 QueryBudgetExceededException 을 던진다.
+     */
+    public static QueryScope open(String name, int maxStatements, long maxMillis, boolean reject) {
+        QueryScope scope = new QueryScope(name, maxStatements, maxMillis, reject, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static QueryScope current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 현재 스레드의 스코프를 작업을 실행하는 스레드에도 묶는다. 샤드/파티션 병렬 조회의 SQL 도 요청의 예산에 들어간다.
+     * 스코프가 없으면 작업을 그대로 돌려준다.
+     */
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        QueryScope scope = CURRENT.get();
+        if (scope == null) {
+            return task;
+        }
+        return () -> {
+            QueryScope previous = CURRENT.get();
+            CURRENT.set(scope);
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    void onStatement(String sql) {
+        if (!reject) {
+            statements.incrementAndGet();
+            return;
+        }
+        if (getElapsedMillis() > maxMillis
+                || statements.getAndUpdate(n -> n < maxStatements ? n + 1 : n) >= maxStatements) {
+            throw new QueryBudgetExceededException(this, sql);
+        }
+    }
+
+    void onExecuted(long elapsedNanos) {
+        jdbcNanos.addAndGet(elapsedNanos);
+    }
+
+    void onRow() {
+        rows.incrementAndGet();
+    }
+
+    public boolean isExceeded() {
+        return getStatements() > maxStatements || getElapsedMillis() > maxMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxStatements() {
+        return maxStatements;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public int getStatements() {
+        return statements.get();
+    }
+
+    public long getRows() {
+        return rows.get();
+    }
+
+    public long getJdbcMillis() {
+        return jdbcNanos.get() / 1_000_000;
+    }
+
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    @Override
+    public void close() {
+        if (parent == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(parent);
+        }
+    }
+}
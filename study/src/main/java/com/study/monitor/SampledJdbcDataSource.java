@@ -0,0 +1,104 @@
+package com.study.monitor;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Connection/Statement 를 얇은 프록시로 감싸 실행 시간만 재는 DataSource.
+ * p6spy 와 달리 SQL 포맷팅이나 ResultSet 래핑을 하지 않고, 표본으로 뽑힌 Statement 만 바인딩 값을 모은다.
+ */
+public class SampledJdbcDataSource extends DelegatingDataSource {
+
+    private final SampledJdbcRecorder recorder;
+
+    public SampledJdbcDataSource(DataSource targetDataSource, SampledJdbcRecorder recorder) {
+        super(targetDataSource);
+        this.recorder = recorder;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    String name = method.getName();
+                    if (result instanceof CallableStatement statement && name.equals("prepareCall")) {
+                        return wrapStatement(statement, CallableStatement.class, (String) args[0]);
+                    }
+                    if (result instanceof PreparedStatement statement && name.equals("prepareStatement")) {
+                        return wrapStatement(statement, PreparedStatement.class, (String) args[0]);
+                    }
+                    if (result instanceof Statement statement && name.equals("createStatement")) {
+                        return wrapStatement(statement, Statement.class, null);
+                    }
+                    return result;
+                });
+    }
+
+    private <T extends Statement> T wrapStatement(T statement, Class<T> type, String sql) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new StatementHandler(statement, sql, recorder.sample())));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String sql;
+        private final Map<Integer, Object> parameters;
+
+        StatementHandler(Statement statement, String sql, boolean sampled) {
+            this.statement = statement;
+            this.sql = sql;
+            this.parameters = sampled ? new TreeMap<>() : null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (parameters != null && name.startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer index) {
+                // setNull(index, sqlType) 의 두 번째 인자는 값이 아니라 타입 코드다.
+                parameters.put(index, name.equals("setNull") ? null : args[1]);
+            }
+            if (!name.startsWith("execute")) {
+                return SampledJdbcDataSource.invoke(statement, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return SampledJdbcDataSource.invoke(statement, method, args);
+            } finally {
+                String executed = args != null && args.length > 0 && args[0] instanceof String s ? s : sql;
+                recorder.executed(executed, parameters, System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.study.monitor;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 운영용 JDBC 계측. 모든 SQL 의 실행 시간은 타이머에 더하고, 표본으로 뽑힌 SQL 만 바인딩 값을 모아 로그로 남긴다.
+ * 표본이 아닌 SQL 은 문자열을 만들지 않는다. 느린 SQL 은 표본 여부와 관계없이 SlowStatementLog 에 남긴다.
+ */
+@Slf4j
+public class SampledJdbcRecorder {
+
+    private final double sampleRate;
+    private final SlowStatementLog slowStatementLog;
+    private final Timer timer;
+
+    public SampledJdbcRecorder(double sampleRate, SlowStatementLog slowStatementLog, MeterRegistry meterRegistry) {
+        this.sampleRate = sampleRate;
+        this.slowStatementLog = slowStatementLog;
+        this.timer = meterRegistry.timer("jdbc.statements");
+    }
+
+    boolean sample() {
+        return sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * @param parameters 표본이 아니면 null
+     */
+    void executed(String sql, Map<Integer, Object> parameters, long elapsedNanos) {
+        timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        QueryScope scope = QueryScope.current();
+        if (scope != null) {
+            scope.onExecuted(elapsedNanos);
+        }
+        if (parameters != null) {
+            log.info("jdbc sample {}ms {} {}", TimeUnit.NANOSECONDS.toMillis(elapsedNanos), sql, parameters);
+        }
+        if (slowStatementLog.isSlow(elapsedNanos)) {
+            slowStatementLog.record(elapsedNanos, sql, parameters == null ? null : parameters.toString());
+        }
+    }
+}
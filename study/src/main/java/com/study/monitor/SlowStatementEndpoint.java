@@ -0,0 +1,21 @@
+package com.study.monitor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@Endpoint(id = "slowstatements")
+@RequiredArgsConstructor
+public class SlowStatementEndpoint {
+
+    private final SlowStatementLog slowStatementLog;
+
+    @ReadOperation
+    public List<SlowStatementLog.SlowStatement> recent() {
+        return slowStatementLog.recent();
+    }
+}
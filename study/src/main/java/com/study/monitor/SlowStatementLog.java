@@ -0,0 +1,78 @@
+package com.study.monitor;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 최근 느린 SQL 을 고정 크기 링 버퍼에 보관한다. /actuator/slowstatements 로 조회한다.
+ * 오래된 항목은 새 항목이 덮어쓰므로 메모리 사용량이 일정하다.
+ */
+@Slf4j
+@Component
+public class SlowStatementLog {
+
+    private static final String REPOSITORY_PACKAGE = "com.study.repository.";
+
+    private final long thresholdNanos;
+    private final AtomicReferenceArray<SlowStatement> buffer;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SlowStatementLog(@Value("${member.query-guard.slow-query:500ms}") Duration threshold,
+                            @Value("${member.query-guard.slow-query-buffer:256}") int capacity) {
+        this.thresholdNanos = threshold.toNanos();
+        this.buffer = new AtomicReferenceArray<>(capacity);
+    }
+
+    public boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= thresholdNanos;
+    }
+
+    /**
+     * 느린 쿼리일 때만 호출되므로 스택을 훑는 비용은 문제 되지 않는다.
+     */
+    public void record(long elapsedNanos, String sql, String parameters) {
+        SlowStatement statement = new SlowStatement(Instant.now(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), origin(), sql, parameters);
+        buffer.set((int) (sequence.getAndIncrement() % buffer.length()), statement);
+        log.warn("slow query {}ms [{}] {} {}", statement.millis(), statement.origin(), sql,
+                parameters == null ? "" : parameters);
+    }
+
+    /**
+     * 최신 순
+     */
+    public List<SlowStatement> recent() {
+        long last = sequence.get();
+        int size = (int) Math.min(last, buffer.length());
+        List<SlowStatement> result = new ArrayList<>(size);
+        for (long seq = last - 1; seq >= last - size; seq--) {
+            SlowStatement statement = buffer.get((int) (seq % buffer.length()));
+            if (statement != null) {
+                result.add(statement);
+            }
+        }
+        return result;
+    }
+
+    static String origin() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith(REPOSITORY_PACKAGE)
+                        && !frame.getClassName().contains("$$"))
+                .findFirst()
+                .map(frame -> frame.getClassName().substring(REPOSITORY_PACKAGE.length())
+                        + "." + frame.getMethodName())
+                .orElse("unknown"));
+    }
+
+    public record SlowStatement(Instant at, long millis, String origin, String sql, String parameters) {
+    }
+}
@@ -0,0 +1,239 @@
+package com.study.repository;
+
+import com.study.entity.ChangeOperation;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원/팀 변경을 change_event(아웃박스)에 기록한다.
+ * 데이터를 바꾼 트랜잭션의 커넥션으로 쓰므로 변경과 함께 커밋/롤백된다.
+ * 엔티티 변경은 ChangeOutboxListener 가, 벌크 연산은 호출하는 쪽이 직접 기록한다.
+ *
+ * seq 는 DB 시퀀스라 커밋 순서와 다를 수 있다. (seq 10 을 받은 트랜잭션이 11 보다 늦게 커밋)
+ * 그래서 진행 중인 트랜잭션이 처음 받은 seq 를 기억해 두고, 읽을 때는 그보다 작은 seq 까지만 보여준다. (watermark)
+ *
+ * 단일 노드 전제: 진행 중인 트랜잭션은 이 빈(이 인스턴스)이 기록한 것만 안다.
+ * 여러 인스턴스가 같은 DB 에 쓰면 다른 인스턴스의 커밋 전 seq 를 watermark 가 넘어설 수 있고,
+ * 소비자는 그 행이 나중에 커밋돼도 since 가 이미 지나가 받지 못한다. 여러 대로 늘리려면 pending 을 DB 에 두거나 커밋 뒤에 seq 를 매겨야 한다.
+ *
+ * change_event 는 member.changes.retention 보다 오래된 행을 purge-interval 마다 지운다. (마지막 행은 남겨 watermark 가 뒤로 가지 않게 한다)
+ * 보관 기간보다 오래 읽지 않은 소비자는 그 사이 변경을 놓치므로 head 부터 다시 받아야 한다.
+ */
+@Slf4j
+@Component
+public class ChangeOutbox {
+
+    private static final String NEXT_SEQ = "select next value for change_event_seq";
+    private static final String INSERT = "insert into change_event (seq, entity_type, entity_id, operation, changed_at)"
+            + " values (next value for change_event_seq, ?, ?, ?, ?)";
+    private static final String INSERT_TEAM_MEMBERS = "insert into change_event (seq, entity_type, entity_id, operation, changed_at)"
+            + " select next value for change_event_seq, 'Member', member_id, ?, ? from member where team_id = ?";
+    private static final String MAX_SEQ = "select coalesce(max(seq), 0) from change_event";
+    private static final String PURGE = "delete from change_event where changed_at < ?"
+            + " and seq < (select max(seq) from change_event) fetch first ? rows only";
+
+    /**
+     * 진행 중인 트랜잭션들의 첫 seq, DB 왕복은 락 밖에서 하고 집합을 읽고 바꿀 때만 잡는다.
+     */
+    private final NavigableSet<Long> pending = new TreeSet<>();
+    private final List<Runnable> commitListeners = new CopyOnWriteArrayList<>();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final Duration purgeInterval;
+    private final int purgeBatchSize;
+    private final ScheduledExecutorService purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "change-outbox-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ChangeOutbox(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${member.changes.retention:7d}") Duration retention,
+                        @Value("${member.changes.purge-interval:1h}") Duration purgeInterval,
+                        @Value("${member.changes.purge-batch-size:1000}") int purgeBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.purgeInterval = purgeInterval;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (retention.isZero() || purgeInterval.isZero()) {
+            return;
+        }
+        purger.scheduleWithFixedDelay(this::purgeQuietly,
+                purgeInterval.toMillis(), purgeInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void close() {
+        purger.shutdownNow();
+    }
+
+    public void append(Session session, String entityType, Collection<Long> ids, ChangeOperation operation) {
+        session.doWork(connection -> append(connection, entityType, ids, operation));
+    }
+
+    public void append(Connection connection, String entityType, Collection<Long> ids,
+                              ChangeOperation operation) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        register(connection);
+        try (PreparedStatement ps = connection.prepareStatement(INSERT)) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            for (Long id : ids) {
+                ps.setString(1, entityType);
+                ps.setLong(2, id);
+                ps.setString(3, operation.name());
+                ps.setTimestamp(4, now);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * 팀 소속 회원 전체의 변경을 insert-select 한 번으로 기록한다. (팀명 변경)
+     */
+    public void appendTeamMembers(Session session, Long teamId, ChangeOperation operation) {
+        session.doWork(connection -> {
+            register(connection);
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_TEAM_MEMBERS)) {
+                ps.setString(1, operation.name());
+                ps.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+                ps.setLong(3, teamId);
+                ps.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * 이 seq 까지는 앞으로 새로 커밋될 변경이 없다.
+     * 진행 중인 트랜잭션이 없으면 지금까지 커밋된 최대 seq, 있으면 그중 가장 작은 첫 seq 바로 앞
+     * max(seq) 를 읽은 뒤 pending 을 다시 본다. 그 사이 시작한 트랜잭션의 행은 max 보다 큰 seq 를 받고,
+     * 읽을 때 보이지 않던 작은 seq 의 행은 아직 진행 중(pending)이거나 그 사이 커밋된 것이다.
+     */
+    public long watermark(Session session) {
+        Long first = firstPending();
+        if (first != null) {
+            return first - 1;
+        }
+        long max = session.doReturningWork(connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(MAX_SEQ);
+                 ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        });
+        first = firstPending();
+        return first == null ? max : Math.min(max, first - 1);
+    }
+
+    private Long firstPending() {
+        synchronized (pending) {
+            return pending.isEmpty() ? null : pending.first();
+        }
+    }
+
+    /**
+     * 변경을 기록한 트랜잭션이 커밋된 뒤 호출된다. (커밋한 스레드에서 실행되므로 오래 걸리는 작업은 넘겨야 한다)
+     */
+    public void onCommit(Runnable listener) {
+        commitListeners.add(listener);
+    }
+
+    public void removeOnCommit(Runnable listener) {
+        commitListeners.remove(listener);
+    }
+
+    /**
+     * 트랜잭션마다 처음 한 번 seq 를 받아 pending 에 넣고, 끝나면 뺀다.
+     * 이후 같은 트랜잭션에서 받는 seq 는 모두 이보다 크다.
+     * seq 는 락 밖에서 받는다. pending 에 넣기 전에 계산된 watermark 도, 이 트랜잭션의 행은 그 뒤에 더 큰 seq 를 받으므로 넘지 않는다.
+     */
+    private void register(Connection connection) throws SQLException {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        long first;
+        try (PreparedStatement ps = connection.prepareStatement(NEXT_SEQ);
+             ResultSet rs = ps.executeQuery()) {
+            rs.next();
+            first = rs.getLong(1);
+        }
+        synchronized (pending) {
+            pending.add(first);
+        }
+        TransactionSynchronizationManager.bindResource(this, first);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ChangeOutbox.this);
+                synchronized (pending) {
+                    pending.remove(first);
+                }
+                if (status == STATUS_COMMITTED) {
+                    commitListeners.forEach(Runnable::run);
+                }
+            }
+        });
+    }
+
+    /**
+     * cutoff 보다 오래된 변경을 purgeBatchSize 행씩 나눠 지운다. 한 트랜잭션이 테이블을 오래 잡지 않게 한다.
+     * @return 지운 행 수
+     */
+    public int purgeOlderThan(LocalDateTime cutoff) {
+        int total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status ->
+                    jdbcTemplate.update(PURGE, Timestamp.valueOf(cutoff), purgeBatchSize));
+            total += deleted;
+        } while (deleted == purgeBatchSize);
+        return total;
+    }
+
+    private void purgeQuietly() {
+        try {
+            int deleted = purgeOlderThan(LocalDateTime.now().minus(retention));
+            if (deleted > 0) {
+                log.info("change_event purged: {} rows older than {}", deleted, retention);
+            }
+        } catch (RuntimeException e) {
+            log.warn("change_event purge failed", e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.study.repository;
+
+import com.study.entity.ChangeOperation;
+import com.study.entity.Member;
+import com.study.entity.Team;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 회원/팀 엔티티의 insert/update/delete 를 flush 시점에 ChangeOutbox 에 기록하는 하이버네이트 이벤트 리스너
+ * JPA 엔티티 리스너에서는 같은 세션으로 쓰기를 할 수 없어서 하이버네이트 이벤트를 쓴다.
+ * 생성이 끝난 뒤(@PostConstruct) 등록한다. 생성자에서 등록하면 초기화가 실패한 빈도 리스너로 남는다.
+ */
+@Component
+public class ChangeOutboxListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ChangeOutbox changeOutbox;
+
+    public ChangeOutboxListener(EntityManagerFactory entityManagerFactory, ChangeOutbox changeOutbox) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.changeOutbox = changeOutbox;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getEntity(), event.getId(), ChangeOperation.INSERT);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getSession(), event.getEntity(), event.getId(), ChangeOperation.UPDATE);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getEntity(), event.getId(), ChangeOperation.DELETE);
+    }
+
+    private void record(EventSource session, Object entity, Object id, ChangeOperation operation) {
+        String entityType = entity instanceof Member ? "Member" : entity instanceof Team ? "Team" : null;
+        if (entityType != null) {
+            changeOutbox.append(session, entityType, List.of((Long) id), operation);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+}
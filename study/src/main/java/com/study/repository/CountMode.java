@@ -0,0 +1,20 @@
+package com.study.repository;
+
+/**
+ * 페이지 조회의 전체 개수 계산 방식
+ */
+public enum CountMode {
+    /**
+     * 항상 count 쿼리 실행 (searchPageSimple)
+     */
+    EXACT,
+    /**
+     * 컨텐츠로 알 수 있으면 count 쿼리 생략 (searchPageComplex)
+     */
+    AUTO,
+    /**
+     * count 쿼리 없이 pageSize + 1 건만 읽는다. totalElements 는 다음 페이지 유무만 반영한 하한값
+     * 과부하 시 응답을 가볍게 할 때 사용한다.
+     */
+    NONE
+}
@@ -0,0 +1,46 @@
+package com.study.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * 검색 쿼리의 JDBC fetch size 를 읽을 행 수에 맞춘다.
+ * H2 TCP 드라이버는 기본으로 64행씩 가져오므로, 큰 페이지는 왕복이 여러 번 생기고 작은 페이지는 버퍼를 낭비한다.
+ */
+@Component
+public class FetchSizePolicy {
+
+    private final int min;
+    private final int max;
+    private final int unpaged;
+
+    public FetchSizePolicy(@Value("${member.jdbc.fetch-size.min:16}") int min,
+                           @Value("${member.jdbc.fetch-size.max:1000}") int max,
+                           @Value("${member.jdbc.fetch-size.unpaged:500}") int unpaged) {
+        this.min = min;
+        this.max = max;
+        this.unpaged = unpaged;
+    }
+
+    /**
+     * 페이지 크기만큼 한 번에 가져온다.
+     */
+    public int forPage(Pageable pageable) {
+        return pageable.isPaged() ? forRows(pageable.getPageSize()) : unpaged;
+    }
+
+    /**
+     * 예상 행 수를 알 때
+     */
+    public int forRows(long expectedRows) {
+        return (int) Math.max(min, Math.min(max, expectedRows));
+    }
+
+    /**
+     * 페이징 없는 search / streamSearch
+     */
+    public int unpaged() {
+        return unpaged;
+    }
+}
@@ -0,0 +1,133 @@
+package com.study.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.dto.MemberSearchCondition;
+import com.study.dto.MemberTeamDto;
+import com.study.monitor.QueryScope;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+import static com.study.entity.QMember.member;
+
+/**
+ * 전체 회원을 훑는 리포트용 병렬 스캔
+ * member_id 범위를 N 개로 나누고, 파티션마다 별도 EntityManager(커넥션)로 커서를 읽어 Collector 로 모은 뒤 합친다.
+ * 파티션은 병렬도 만큼만 동시에 실행되며, 병렬도는 커넥션 풀 크기보다 작게 잡아야 다른 요청이 커넥션을 얻을 수 있다.
+ *
+ * <pre>
+ * Map&lt;String, Double&gt; avgAgeByTeam = scanner.scan(new MemberSearchCondition(), 8,
+ *         Collectors.groupingBy(dto -&gt; String.valueOf(dto.getTeamName()), Collectors.averagingInt(MemberTeamDto::getAge)));
+ * </pre>
+ */
+@Component
+public class MemberPartitionScanner {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final MemberRepositoryCustomImpl memberRepositoryCustom;
+    private final FetchSizePolicy fetchSizePolicy;
+    private final ExecutorService executor;
+
+    public MemberPartitionScanner(EntityManagerFactory entityManagerFactory,
+                                  MemberRepositoryCustomImpl memberRepositoryCustom,
+                                  FetchSizePolicy fetchSizePolicy,
+                                  @Value("${member.partition-scan.parallelism:4}") int parallelism) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.memberRepositoryCustom = memberRepositoryCustom;
+        this.fetchSizePolicy = fetchSizePolicy;
+        this.executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    /**
+     * Collector 는 파티션마다 supplier 로 컨테이너를 만들어 누적하고, combiner 로 합친 뒤 finisher 를 적용한다.
+     * (병렬 스트림과 같은 규칙이므로 Collectors 의 기본 Collector 를 그대로 쓸 수 있다.)
+     */
+    public <A, R> R scan(MemberSearchCondition condition, int partitions, Collector<MemberTeamDto, A, R> collector) {
+        if (partitions <= 0) {
+            throw new IllegalArgumentException("파티션 수는 1 이상이어야 합니다. partitions=" + partitions);
+        }
+        Tuple range = withEntityManager(em -> new JPAQueryFactory(em)
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .fetchOne());
+        Long min = range == null ? null : range.get(member.id.min());
+        Long max = range == null ? null : range.get(member.id.max());
+        if (min == null || max == null) {
+            return collector.finisher().apply(collector.supplier().get());
+        }
+
+        long width = Math.max(1, (max - min + partitions) / partitions);
+        List<CompletableFuture<A>> futures = new ArrayList<>();
+        for (long from = min; from <= max; from += width) {
+            long to = Math.min(max, from + width - 1);
+            long partitionFrom = from;
+            futures.add(CompletableFuture.supplyAsync(
+                    QueryScope.propagate(() -> scanPartition(condition, partitionFrom, to, collector)), executor));
+        }
+
+        A result = null;
+        for (CompletableFuture<A> future : futures) {
+            A partial = join(future);
+            result = result == null ? partial : collector.combiner().apply(result, partial);
+        }
+        return collector.finisher().apply(result);
+    }
+
+    private <A> A scanPartition(MemberSearchCondition condition, long from, long to,
+                                Collector<MemberTeamDto, A, ?> collector) {
+        return withEntityManager(em -> {
+            A container = collector.supplier().get();
+            BiConsumer<A, MemberTeamDto> accumulator = collector.accumulator();
+            try (Stream<MemberTeamDto> rows = memberRepositoryCustom
+                    .selectMemberTeamDto(new JPAQueryFactory(em))
+                    .where(memberRepositoryCustom.searchFilter(condition))
+                    .where(member.id.between(from, to))
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSizePolicy.unpaged())
+                    .setHint(HibernateHints.HINT_READ_ONLY, true)
+                    .stream()) {
+                rows.forEach(row -> accumulator.accept(container, row));
+            }
+            return container;
+        });
+    }
+
+    private <T> T withEntityManager(Function<EntityManager, T> work) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static <A> A join(CompletableFuture<A> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+}
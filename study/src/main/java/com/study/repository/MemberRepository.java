@@ -2,10 +2,12 @@ package com.study.repository;
 
 import com.study.entity.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 
+    @Transactional(readOnly = true)
     List<Member> findByUsername(String username);
 }
@@ -1,16 +1,69 @@
 package com.study.repository;
 
+import com.study.dto.MemberField;
 import com.study.dto.MemberSearchCondition;
 import com.study.dto.MemberTeamDto;
+import com.study.entity.Member;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 public interface MemberRepositoryCustom {
 
     List<MemberTeamDto> search(MemberSearchCondition condition);
 
+    /**
+     * 회원 id 목록으로 조회, 없는 id 는 결과에서 빠진다.
+     */
+    List<MemberTeamDto> searchByIds(Collection<Long> memberIds);
+
+    /**
+     * 회원명으로 엔티티 조회, 영속성 컨텍스트에 올리지 않는다. (변경하지 않고 읽기만 할 때)
+     */
+    List<Member> findDetachedByUsername(String username);
+
+    Stream<MemberTeamDto> streamSearch(MemberSearchCondition condition);
+
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, CountMode countMode);
+
+    /**
+     * 요청한 필드만 조회해서 필드명 -> 값 Map 으로 반환, 카운트는 searchPageComplex 와 같이 생략 가능하면 생략
+     */
+    default Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields,
+                                                       Pageable pageable) {
+        return searchPageFields(condition, fields, pageable, CountMode.AUTO);
+    }
+
+    Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields,
+                                               Pageable pageable, CountMode countMode);
+
+    /**
+     * 조건 목록을 한 번에 검색, 결과는 조건 순서대로 반환
+     * username 외의 조건이 모두 같은 것들만 username in (...) 쿼리 하나로 합친다.
+     * username 이 없거나 나머지 조건이 다른 항목은 각각(또는 그 조건끼리) 따로 조회하므로, 쿼리 수는 서로 다른 조건 모양의 수만큼 든다.
+     */
+    List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions);
+
+    /**
+     * 나이를 DB 에서 원자적으로 증가(age = age + delta), 변경된 행 수 반환
+     */
+    long incrementAge(Collection<Long> memberIds, int delta);
+
+    /**
+     * 회원들의 팀을 한 번에 변경, 팀의 members 컬렉션은 읽지 않는다. teamId 가 null 이면 팀에서 뺀다.
+     */
+    long moveMembers(Long teamId, Collection<Long> memberIds);
+
+    /**
+     * 팀에 속한 회원들의 비정규화된 팀명 변경
+     */
+    long updateTeamName(Long teamId, String teamName);
 }
@@ -1,56 +1,286 @@
 package com.study.repository;
 
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.StringPath;
+import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.dto.MemberField;
 import com.study.dto.MemberSearchCondition;
 import com.study.dto.MemberTeamDto;
-import com.study.dto.QMemberTeamDto;
+import com.study.dto.MemberTeamDtoProjection;
+import com.study.entity.ChangeOperation;
+import com.study.entity.DataVersion;
+import com.study.entity.Member;
+import com.study.entity.QMember;
+import com.study.entity.Team;
+import com.study.entity.UsernameGram;
+import com.study.monitor.MemberSearchEvent;
 import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.StatelessSession;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.study.entity.QMember.member;
 import static com.study.entity.QTeam.team;
 import static org.springframework.util.StringUtils.isEmpty;
 
+/**
+ * 조회 메서드는 @Transactional(readOnly = true)
+ * 새로 시작하는 읽기 전용 트랜잭션은 JpaTransactionManager 가 세션을 FlushMode.MANUAL, defaultReadOnly 로 바꿔서
+ * 쿼리 전 auto flush 검사, 커밋 시 변경 감지, 엔티티 스냅샷이 없다. 바깥 트랜잭션에 참여하면 그 설정을 따른다.
+ */
 public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
 
+    private final EntityManager em;
     private final JPAQueryFactory jpaQueryFactory;
+    private final FetchSizePolicy fetchSizePolicy;
+    private final ChangeOutbox changeOutbox;
 
-    public MemberRepositoryCustomImpl(EntityManager em) {
+    /**
+     * true 면 팀명을 member.team_name(비정규화 컬럼)에서 읽고 team 조인을 생략한다.
+     */
+    private final boolean denormalizedTeamName;
+
+    public MemberRepositoryCustomImpl(EntityManager em, FetchSizePolicy fetchSizePolicy, ChangeOutbox changeOutbox,
+                                      @Value("${member.search.denormalized-team-name:false}") boolean denormalizedTeamName) {
+        this.em = em;
         this.jpaQueryFactory = new JPAQueryFactory(em);
+        this.fetchSizePolicy = fetchSizePolicy;
+        this.changeOutbox = changeOutbox;
+        this.denormalizedTeamName = denormalizedTeamName;
     }
 
-    //회원명, 팀명, 나이(ageGoe, ageLoe)
-    @Override
-    public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return  jpaQueryFactory
-                .select(new QMemberTeamDto(
+    /**
+     * MemberTeamDto 조회 쿼리의 select/from, MemberPartitionScanner 도 같은 형태를 쓴다.
+     */
+    JPAQuery<MemberTeamDto> selectMemberTeamDto(JPAQueryFactory queryFactory) {
+        if (denormalizedTeamName) {
+            // member.team.id 는 외래 키 컬럼이라 조인이 생기지 않는다.
+            return queryFactory
+                    .select(new MemberTeamDtoProjection(
+                            member.id,
+                            member.username,
+                            member.age,
+                            member.team.id,
+                            member.teamName))
+                    .from(member);
+        }
+        return queryFactory
+                .select(new MemberTeamDtoProjection(
                         member.id,
                         member.username,
                         member.age,
                         team.id,
                         team.name))
                 .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
+                .leftJoin(member.team, team);
+    }
+
+    JPAQuery<Long> countMember(JPAQueryFactory queryFactory) {
+        JPAQuery<Long> query = queryFactory
+                .select(member.count())
+                .from(member);
+        return denormalizedTeamName ? query : query.leftJoin(member.team, team);
+    }
+
+    //회원명, 팀명, 나이(ageGoe, ageLoe)
+    @Override
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        MemberSearchEvent event = MemberSearchEvent.start();
+        long start = event.now();
+        List<MemberTeamDto> content = selectMemberTeamDto(jpaQueryFactory)
+                .where(searchFilter(condition))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSizePolicy.unpaged())
                 .fetch();
+        event.contentQueried(start, content.size());
+        event.commit("search", condition, null);
+        return content;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> searchByIds(Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return List.of();
+        }
+        return selectMemberTeamDto(jpaQueryFactory)
+                .where(member.id.in(memberIds))
+                .fetch();
+    }
+
+    /**
+     * StatelessSession 으로 조회해서 영속성 컨텍스트에 올리지 않는다. (1차 캐시, 스냅샷, EntityEntry 없음)
+     * 현재 트랜잭션의 커넥션을 같이 쓰지만 flush 는 하지 않으므로, 같은 트랜잭션에서 flush 전 변경은 보이지 않는다.
+     * 팀은 fetch join 으로 함께 읽는다. 반환된 엔티티는 준영속이라 다른 LAZY 속성은 읽을 수 없고, 변경해도 반영되지 않는다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<Member> findDetachedByUsername(String username) {
+        Session session = em.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            try (StatelessSession stateless = session.getSessionFactory()
+                    .withStatelessOptions()
+                    .connection(connection)
+                    .openStatelessSession()) {
+                return stateless
+                        .createSelectionQuery("select m from Member m left join fetch m.team where m.username = :username",
+                                Member.class)
+                        .setParameter("username", username)
+                        .getResultList();
+            }
+        });
+    }
+
+    /**
+     * 결과를 List 로 모으지 않고 커서로 읽는다. 트랜잭션 안에서 사용하고, 다 읽으면 닫아야 한다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Stream<MemberTeamDto> streamSearch(MemberSearchCondition condition) {
+        return selectMemberTeamDto(jpaQueryFactory)
+                .where(searchFilter(condition))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSizePolicy.unpaged())
+                .stream();
+    }
+
+    /**
+     * username 만 다른 조건들은 username in (...) 쿼리 하나로 합쳐서 조회한 뒤, username 으로 다시 나눠준다.
+     * username 이 없는 조건은 합칠 기준이 없으므로 각각 조회한다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions) {
+        Map<MemberSearchCondition, List<Integer>> groups = new LinkedHashMap<>();
+        List<List<MemberTeamDto>> results = new ArrayList<>(conditions.size());
+        for (int i = 0; i < conditions.size(); i++) {
+            MemberSearchCondition condition = conditions.get(i);
+            results.add(null);
+            if (isEmpty(condition.getUsername())) {
+                results.set(i, search(condition));
+                continue;
+            }
+            groups.computeIfAbsent(withoutUsername(condition), k -> new ArrayList<>()).add(i);
+        }
+
+        groups.forEach((shape, indexes) -> {
+            Set<String> usernames = new LinkedHashSet<>();
+            indexes.forEach(i -> usernames.add(conditions.get(i).getUsername()));
+
+            Map<String, List<MemberTeamDto>> byUsername = selectMemberTeamDto(jpaQueryFactory)
+                    .where(searchFilter(shape))
+                    .where(member.username.in(usernames))
+                    .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSizePolicy.unpaged())
+                    .fetch()
+                    .stream()
+                    .collect(Collectors.groupingBy(MemberTeamDto::getUsername));
+
+            indexes.forEach(i -> results.set(i,
+                    byUsername.getOrDefault(conditions.get(i).getUsername(), List.of())));
+        });
+        return results;
+    }
+
+    private MemberSearchCondition withoutUsername(MemberSearchCondition condition) {
+        MemberSearchCondition shape = new MemberSearchCondition();
+        shape.setTenantId(condition.getTenantId());
+        shape.setUsernameContains(condition.getUsernameContains());
+        shape.setUsernamePrefix(condition.getUsernamePrefix());
+        shape.setTeamName(condition.getTeamName());
+        shape.setAgeGoe(condition.getAgeGoe());
+        shape.setAgeLoe(condition.getAgeLoe());
+        return shape;
+    }
+
+    /**
+     * 검색 조건 where 절, MemberPartitionScanner 도 같은 조건을 쓴다.
+     */
+    BooleanExpression[] searchFilter(MemberSearchCondition condition) {
+        return new BooleanExpression[]{
+                tenantEq(condition.getTenantId()),
+                usernameEq(condition.getUsername()),
+                usernameContains(condition.getUsernameContains()),
+                usernamePrefix(condition.getUsernamePrefix()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        };
     }
 
     private BooleanExpression usernameEq(String username) {
         return isEmpty(username) ? null : member.username.eq(username);
     }
+
+    /**
+     * like '%keyword%' 는 인덱스를 못 타므로, n-gram 테이블에서 검색어의 gram 을 모두 가진 회원으로 먼저 좁힌다.
+     * gram 보다 짧은 검색어는 좁힐 수 없어서 contains 로 처리한다.
+     */
+    private BooleanExpression usernameContains(String keyword) {
+        if (isEmpty(keyword)) {
+            return null;
+        }
+        Set<String> grams = UsernameGram.of(keyword);
+        if (grams.isEmpty()) {
+            return member.username.contains(keyword);
+        }
+        QMember gramMember = new QMember("gramMember");
+        StringPath gram = Expressions.stringPath("gram");
+        return member.id.in(
+                        JPAExpressions
+                                .select(gramMember.id)
+                                .from(gramMember)
+                                .join(gramMember.usernameGrams, gram)
+                                .where(gram.in(grams))
+                                .groupBy(gramMember.id)
+                                .having(gram.countDistinct().eq((long) grams.size())))
+                .and(member.username.contains(keyword));
+    }
+
+    /**
+     * 테넌트 조건은 생략하지 않는다. 없으면 기본 테넌트(tenant_id 가 null 이거나 'default')만 조회한다.
+     * 회원명 조건과 함께 오면 (tenant_id, username) 인덱스로 처리된다.
+     */
+    private BooleanExpression tenantEq(String tenantId) {
+        String tenant = TenantSearchLimiter.tenantOf(tenantId);
+        if (TenantSearchLimiter.DEFAULT_TENANT.equals(tenant)) {
+            return member.tenantId.isNull().or(member.tenantId.eq(tenant));
+        }
+        return member.tenantId.eq(tenant);
+    }
+
+    /**
+     * like 'prefix%' 는 username 인덱스 범위 스캔으로 처리된다.
+     */
+    private BooleanExpression usernamePrefix(String prefix) {
+        return isEmpty(prefix) ? null : member.username.startsWith(prefix);
+    }
     private BooleanExpression teamNameEq(String teamName) {
-        return isEmpty(teamName) ? null : team.name.eq(teamName);
+        if (isEmpty(teamName)) {
+            return null;
+        }
+        return denormalizedTeamName ? member.teamName.eq(teamName) : team.name.eq(teamName);
     }
     private BooleanExpression ageGoe(Integer ageGoe) {
         return ageGoe == null ? null : member.age.goe(ageGoe);
@@ -64,27 +294,22 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
      * 단순한 페이징, fetchResults() 사용
      */
     @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = jpaQueryFactory
-                .select(new QMemberTeamDto(
-                        member.id,
-                        member.username,
-                        member.age,
-                        team.id,
-                        team.name))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()))
+        MemberSearchEvent event = MemberSearchEvent.start();
+        long start = event.now();
+        QueryResults<MemberTeamDto> results = selectMemberTeamDto(jpaQueryFactory)
+                .where(searchFilter(condition))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSizePolicy.forPage(pageable))
                 .fetchResults();
 
         List<MemberTeamDto> content = results.getResults();
         long total = results.getTotal();
-
+        // fetchResults() 는 컨텐츠와 카운트를 한 번에 실행하므로 나눠 잴 수 없다.
+        event.contentQueried(start, content.size());
+        event.commit("searchPageSimple", condition, pageable);
 
         return new PageImpl<>(content, pageable, total);
     }
@@ -93,38 +318,23 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
      * 복잡한 페이징
      * 데이터 조회 쿼리와, 전체 카운트 쿼리를 분리
      */
+    @Override
+    @Transactional(readOnly = true)
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition,
                                                  Pageable pageable) {
-        List<MemberTeamDto> content = jpaQueryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+        MemberSearchEvent event = MemberSearchEvent.start();
+        long start = event.now();
+        List<MemberTeamDto> content = selectMemberTeamDto(jpaQueryFactory)
+                .where(searchFilter(condition))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSizePolicy.forPage(pageable))
                 .fetch();
+        event.contentQueried(start, content.size());
 
 
-        JPAQuery<Long> countQuery = jpaQueryFactory
-                .select(member.count())
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+        JPAQuery<Long> countQuery = countMember(jpaQueryFactory)
+                .where(searchFilter(condition));
 
         // return new PageImpl<>(content, pageable, total);
         /**
@@ -135,7 +345,200 @@ public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
          * 마지막 페이지 일 때 (offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함, 더 정확히는 마지막 페이지이면
          * 서 컨텐츠 사이즈가 페이지 사이즈보다 작을 때)
          */
-        return PageableExecutionUtils.getPage(content, pageable,
-                countQuery::fetchOne);
+        Page<MemberTeamDto> page = PageableExecutionUtils.getPage(content, pageable, () -> {
+            long countStart = event.now();
+            Long total = countQuery.fetchOne();
+            event.countQueried(countStart);
+            return total;
+        });
+        event.commit("searchPageComplex", condition, pageable);
+        return page;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, CountMode countMode) {
+        return switch (countMode) {
+            case EXACT -> searchPageSimple(condition, pageable);
+            case AUTO -> searchPageComplex(condition, pageable);
+            case NONE -> searchPageWithoutCount(condition, pageable);
+        };
+    }
+
+    /**
+     * 한 건 더 읽어서 다음 페이지 유무만 판단한다.
+     */
+    private Page<MemberTeamDto> searchPageWithoutCount(MemberSearchCondition condition, Pageable pageable) {
+        MemberSearchEvent event = MemberSearchEvent.start();
+        long start = event.now();
+        List<MemberTeamDto> rows = selectMemberTeamDto(jpaQueryFactory)
+                .where(searchFilter(condition))
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize() + 1L)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSizePolicy.forPage(pageable))
+                .fetch();
+        event.contentQueried(start, rows.size());
+        event.commit("searchPageWithoutCount", condition, pageable);
+
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<MemberTeamDto> content = hasNext ? new ArrayList<>(rows.subList(0, pageable.getPageSize())) : rows;
+        long total = pageable.getOffset() + content.size() + (hasNext ? 1 : 0);
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * 요청한 필드의 경로만 select 한다. (Tuple 프로젝션)
+     * teamId 는 member.team_id 외래 키로 읽으므로, 팀명이 select/where 어디에도 없으면 team 조인을 생략한다.
+     * 결과는 요청한 필드만 담은 Map 이라 JSON 에도 그 필드만 나간다.
+     * 전체 개수는 countMode 에 따라 searchPage 와 같이 계산한다.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields,
+                                                      Pageable pageable, CountMode countMode) {
+        MemberSearchEvent event = MemberSearchEvent.start();
+        long start = event.now();
+        List<MemberField> selected = List.copyOf(fields);
+        Expression<?>[] paths = selected.stream()
+                .map(this::fieldPath)
+                .toArray(Expression<?>[]::new);
+
+        JPAQuery<Tuple> query = jpaQueryFactory
+                .select(paths)
+                .from(member);
+        if (joinsTeam(fields.contains(MemberField.TEAM_NAME), condition)) {
+            query.leftJoin(member.team, team);
+        }
+        List<Map<String, Object>> content = query
+                .where(searchFilter(condition))
+                .offset(pageable.getOffset())
+                .limit(countMode == CountMode.NONE ? pageable.getPageSize() + 1L : pageable.getPageSize())
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSizePolicy.forPage(pageable))
+                .fetch()
+                .stream()
+                .map(tuple -> {
+                    Map<String, Object> row = new LinkedHashMap<>(selected.size() * 2);
+                    for (int i = 0; i < selected.size(); i++) {
+                        row.put(selected.get(i).getFieldName(), tuple.get(i, Object.class));
+                    }
+                    return row;
+                })
+                .toList();
+        event.contentQueried(start, content.size());
+
+        if (countMode == CountMode.NONE) {
+            event.commit("searchPageFields", condition, pageable);
+            boolean hasNext = content.size() > pageable.getPageSize();
+            List<Map<String, Object>> pageContent = hasNext
+                    ? new ArrayList<>(content.subList(0, pageable.getPageSize())) : content;
+            long total = pageable.getOffset() + pageContent.size() + (hasNext ? 1 : 0);
+            return new PageImpl<>(pageContent, pageable, total);
+        }
+
+        JPAQuery<Long> countQuery = jpaQueryFactory
+                .select(member.count())
+                .from(member);
+        if (joinsTeam(false, condition)) {
+            countQuery.leftJoin(member.team, team);
+        }
+        countQuery.where(searchFilter(condition));
+
+        LongSupplier total = () -> {
+            long countStart = event.now();
+            Long count = countQuery.fetchOne();
+            event.countQueried(countStart);
+            return count;
+        };
+        Page<Map<String, Object>> page = countMode == CountMode.EXACT
+                ? new PageImpl<>(content, pageable, total.getAsLong())
+                : PageableExecutionUtils.getPage(content, pageable, total);
+        event.commit("searchPageFields", condition, pageable);
+        return page;
+    }
+
+    private Expression<?> fieldPath(MemberField field) {
+        return switch (field) {
+            case MEMBER_ID -> member.id;
+            case USERNAME -> member.username;
+            case AGE -> member.age;
+            case TEAM_ID -> member.team.id;
+            case TEAM_NAME -> denormalizedTeamName ? member.teamName : team.name;
+        };
+    }
+
+    private boolean joinsTeam(boolean selectsTeamName, MemberSearchCondition condition) {
+        if (denormalizedTeamName) {
+            return false;
+        }
+        return selectsTeamName || !isEmpty(condition.getTeamName());
+    }
+
+    /**
+     * 벌크 연산이므로 영속성 컨텍스트를 거치지 않는다. 먼저 flush 하고, 실행 후에는 clear 해서 이전 값을 읽지 않게 한다.
+     * 엔티티를 읽고 setter 로 바꾸는 방식과 달리 동시에 실행돼도 증가분이 사라지지 않는다.
+     * version 도 올려서, 같은 회원을 엔티티로 수정 중인 트랜잭션은 낙관적 락 충돌로 실패하게 한다.
+     */
+    @Override
+    public long incrementAge(Collection<Long> memberIds, int delta) {
+        if (memberIds.isEmpty()) {
+            return 0;
+        }
+        em.flush();
+        long count = jpaQueryFactory
+                .update(member)
+                .set(member.age, member.age.add(delta))
+                .set(member.version, member.version.add(1L))
+                .where(member.id.in(memberIds))
+                .execute();
+        em.clear();
+        changeOutbox.append(em.unwrap(Session.class), "Member", memberIds, ChangeOperation.UPDATE);
+        DataVersion.incrementAfterCommit();
+        return count;
+    }
+
+    /**
+     * 벌크 연산, incrementAge() 와 같이 flush 후 실행하고 clear 한다.
+     */
+    @Override
+    public long moveMembers(Long teamId, Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return 0;
+        }
+        em.flush();
+        Team target = teamId == null ? null : em.getReference(Team.class, teamId);
+        String teamName = teamId == null ? null : jpaQueryFactory
+                .select(team.name)
+                .from(team)
+                .where(team.id.eq(teamId))
+                .fetchOne();
+        long count = jpaQueryFactory
+                .update(member)
+                .set(member.team, target)
+                .set(member.teamName, teamName)
+                .set(member.version, member.version.add(1L))
+                .where(member.id.in(memberIds))
+                .execute();
+        em.clear();
+        changeOutbox.append(em.unwrap(Session.class), "Member", memberIds, ChangeOperation.UPDATE);
+        DataVersion.incrementAfterCommit();
+        return count;
+    }
+
+    /**
+     * 팀명이 바뀌면 비정규화된 member.team_name 을 한 번에 맞춘다. (TeamService.rename)
+     */
+    @Override
+    public long updateTeamName(Long teamId, String teamName) {
+        em.flush();
+        long count = jpaQueryFactory
+                .update(member)
+                .set(member.teamName, teamName)
+                .set(member.version, member.version.add(1L))
+                .where(member.team.id.eq(teamId))
+                .execute();
+        em.clear();
+        changeOutbox.appendTeamMembers(em.unwrap(Session.class), teamId, ChangeOperation.UPDATE);
+        DataVersion.incrementAfterCommit();
+        return count;
     }
 }
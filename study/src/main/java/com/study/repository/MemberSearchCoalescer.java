@@ -0,0 +1,266 @@
+package com.study.repository;
+
+import com.study.dto.MemberField;
+import com.study.dto.MemberSearchCondition;
+import com.study.dto.MemberTeamDto;
+import com.study.entity.DataVersion;
+import com.study.entity.Member;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * 동시에 들어온 같은 (검색 조건, 페이지) 요청을 한 번의 DB 조회로 합친다. (single-flight)
+ * 먼저 들어온 요청이 조회를 실행하고, 나머지는 그 결과를 함께 받는다.
+ * 조회가 끝난 뒤에도 window 동안은 결과를 재사용해서, 몇 ms 차이로 들어오는 요청도 합쳐진다.
+ * 키에 데이터 버전을 넣어, 변경이 커밋된 뒤에 들어온 요청은 그 전에 시작한 조회나 window 동안 남은 결과를 받지 않는다.
+ * 샤딩(member.sharding.enabled)이 켜져 있으면 조회는 ShardedMemberSearch, 쓰기(벌크 연산)는 ShardedMemberWriter 로 보낸다.
+ * DB 조회는 TenantSearchLimiter 의 테넌트별 동시 실행 한도 안에서 하고, window 동안 남겨 두는 결과도 테넌트별 한도까지만 남긴다.
+ */
+@Component
+public class MemberSearchCoalescer implements MemberRepositoryCustom {
+
+    private final MemberRepository memberRepository;
+    private final TenantSearchLimiter tenantLimiter;
+    /**
+     * 샤딩이 꺼져 있으면 null
+     */
+    private final ShardedMemberSearch shardedSearch;
+    /**
+     * 샤딩이 꺼져 있으면 null
+     */
+    private final ShardedMemberWriter shardedWriter;
+    private final boolean enabled;
+    private final Duration window;
+
+    private final Map<SearchKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Counter requests;
+    private final Counter executions;
+
+    @Autowired
+    public MemberSearchCoalescer(MemberRepository memberRepository,
+                                 TenantSearchLimiter tenantLimiter,
+                                 ObjectProvider<ShardedMemberSearch> shardedSearch,
+                                 ObjectProvider<ShardedMemberWriter> shardedWriter,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${member.search.coalescing.enabled:true}") boolean enabled,
+                                 @Value("${member.search.coalescing.window:0ms}") Duration window) {
+        this(memberRepository, tenantLimiter, shardedSearch.getIfAvailable(), shardedWriter.getIfAvailable(),
+                meterRegistry, enabled, window);
+    }
+
+    public MemberSearchCoalescer(MemberRepository memberRepository,
+                                 TenantSearchLimiter tenantLimiter,
+                                 MeterRegistry meterRegistry,
+                                 boolean enabled,
+                                 Duration window) {
+        this(memberRepository, tenantLimiter, (ShardedMemberSearch) null, null, meterRegistry, enabled, window);
+    }
+
+    MemberSearchCoalescer(MemberRepository memberRepository,
+                          TenantSearchLimiter tenantLimiter,
+                          ShardedMemberSearch shardedSearch,
+                          ShardedMemberWriter shardedWriter,
+                          MeterRegistry meterRegistry,
+                          boolean enabled,
+                          Duration window) {
+        this.memberRepository = memberRepository;
+        this.tenantLimiter = tenantLimiter;
+        this.shardedSearch = shardedSearch;
+        this.shardedWriter = shardedWriter;
+        this.enabled = enabled;
+        this.window = window;
+        this.requests = meterRegistry.counter("member.search.coalescing.requests");
+        this.executions = meterRegistry.counter("member.search.coalescing.executions");
+        Gauge.builder("member.search.coalescing.dedup.ratio", this, MemberSearchCoalescer::dedupRatio)
+                .description("DB 조회 없이 다른 요청의 결과를 받은 비율")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return coalesce(SearchKey.of("search", condition, null),
+                () -> shardedSearch != null ? shardedSearch.search(condition) : memberRepository.search(condition));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return coalesce(SearchKey.of("searchPageSimple", condition, pageable),
+                () -> shardedSearch != null
+                        ? shardedSearch.searchPageSimple(condition, pageable)
+                        : memberRepository.searchPageSimple(condition, pageable));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return coalesce(SearchKey.of("searchPageComplex", condition, pageable),
+                () -> shardedSearch != null
+                        ? shardedSearch.searchPageComplex(condition, pageable)
+                        : memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, CountMode countMode) {
+        return coalesce(SearchKey.of("searchPage" + countMode, condition, pageable),
+                () -> shardedSearch != null
+                        ? shardedSearch.searchPage(condition, pageable, countMode)
+                        : memberRepository.searchPage(condition, pageable, countMode));
+    }
+
+    @Override
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields,
+                                                      Pageable pageable, CountMode countMode) {
+        return coalesce(SearchKey.of("searchPageFields" + countMode + fields, condition, pageable),
+                () -> shardedSearch != null
+                        ? shardedSearch.searchPageFields(condition, fields, pageable, countMode)
+                        : memberRepository.searchPageFields(condition, fields, pageable, countMode));
+    }
+
+    /**
+     * id 목록 조회는 호출마다 목록이 달라서 합치지 않는다.
+     */
+    @Override
+    public List<MemberTeamDto> searchByIds(Collection<Long> memberIds) {
+        return shardedSearch != null ? shardedSearch.searchByIds(memberIds) : memberRepository.searchByIds(memberIds);
+    }
+
+    /**
+     * 엔티티 조회는 호출자마다 다른 인스턴스를 받아야 하므로 합치지 않는다.
+     */
+    @Override
+    public List<Member> findDetachedByUsername(String username) {
+        return shardedSearch != null
+                ? shardedSearch.findDetachedByUsername(username)
+                : memberRepository.findDetachedByUsername(username);
+    }
+
+    /**
+     * 스트림은 호출자마다 커서를 따로 읽어야 하므로 합치지 않는다.
+     */
+    @Override
+    public Stream<MemberTeamDto> streamSearch(MemberSearchCondition condition) {
+        return shardedSearch != null ? shardedSearch.streamSearch(condition) : memberRepository.streamSearch(condition);
+    }
+
+    /**
+     * 배치 검색은 호출마다 조건 목록이 달라서 합치지 않는다. 동시 실행 한도는 첫 조건의 테넌트로 센다.
+     * 샤딩이면 조건마다 scatter-gather 검색을 한다.
+     */
+    @Override
+    public List<List<MemberTeamDto>> searchBatch(List<MemberSearchCondition> conditions) {
+        String tenantId = conditions.isEmpty() ? null : conditions.get(0).getTenantId();
+        if (shardedSearch != null) {
+            return tenantLimiter.execute(tenantId, () -> conditions.stream().map(shardedSearch::search).toList());
+        }
+        return tenantLimiter.execute(tenantId, () -> memberRepository.searchBatch(conditions));
+    }
+
+    @Override
+    public long incrementAge(Collection<Long> memberIds, int delta) {
+        return shardedWriter != null
+                ? shardedWriter.incrementAge(memberIds, delta)
+                : memberRepository.incrementAge(memberIds, delta);
+    }
+
+    @Override
+    public long moveMembers(Long teamId, Collection<Long> memberIds) {
+        return shardedWriter != null
+                ? shardedWriter.moveMembers(teamId, memberIds)
+                : memberRepository.moveMembers(teamId, memberIds);
+    }
+
+    @Override
+    public long updateTeamName(Long teamId, String teamName) {
+        return shardedWriter != null
+                ? shardedWriter.updateTeamName(teamId, teamName)
+                : memberRepository.updateTeamName(teamId, teamName);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(SearchKey key, Supplier<T> query) {
+        String tenantId = key.condition().getTenantId();
+        if (!enabled) {
+            return tenantLimiter.execute(tenantId, query);
+        }
+        requests.increment();
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, future);
+        if (leader != null) {
+            return (T) await(leader);
+        }
+
+        executions.increment();
+        T result;
+        try {
+            result = tenantLimiter.execute(tenantId, query);
+        } catch (Throwable e) {
+            // Error(OOM, StackOverflow 등)도 전달해야 기다리는 요청이 풀리고 키가 남지 않는다.
+            future.completeExceptionally(e);
+            inFlight.remove(key, future);
+            throw e;
+        }
+        future.complete(result);
+        release(key, future, tenantId);
+        return result;
+    }
+
+    private void release(SearchKey key, CompletableFuture<Object> future, String tenantId) {
+        if (window.isZero() || window.isNegative() || !tenantLimiter.tryRetain(tenantId)) {
+            inFlight.remove(key, future);
+            return;
+        }
+        CompletableFuture.delayedExecutor(window.toMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> {
+                    inFlight.remove(key, future);
+                    tenantLimiter.releaseCache(tenantId);
+                });
+    }
+
+    private static Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    double dedupRatio() {
+        double total = requests.count();
+        return total == 0 ? 0 : (total - executions.count()) / total;
+    }
+
+    /**
+     * version 은 키를 만들 때의 DataVersion, 컨트롤러가 ETag 를 만들기 위해 읽은 값과 같거나 더 새롭다.
+     */
+    private record SearchKey(String method, MemberSearchCondition condition, Pageable pageable, long version) {
+
+        static SearchKey of(String method, MemberSearchCondition condition, Pageable pageable) {
+            return new SearchKey(method, condition, pageable, DataVersion.current());
+        }
+    }
+}
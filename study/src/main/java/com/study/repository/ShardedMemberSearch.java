@@ -0,0 +1,323 @@
+package com.study.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.study.dto.MemberField;
+import com.study.dto.MemberSearchCondition;
+import com.study.dto.MemberTeamDto;
+import com.study.entity.Member;
+import com.study.monitor.QueryScope;
+import com.study.shard.Shard;
+import com.study.shard.ShardRouter;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static com.study.entity.QMember.member;
+
+/**
+ * 샤드된 회원 검색 (scatter-gather)
+ * 샤드마다 같은 쿼리를 병렬로 실행하고, 정렬 키 기준 k-way 병합으로 전역 offset/limit 을 적용한다.
+ * 회원은 id 로 샤드가 정해지므로(ShardRouter) 조건 검색은 항상 모든 샤드를 보고, id 조회는 그 id 의 샤드만 본다.
+ * 샤드마다 offset + pageSize 행을 가져와야 하므로, 깊은 페이지일수록 비용이 샤드 수만큼 커진다.
+ * 회원 id 는 샤드마다 범위가 달라 전역으로 유일하므로, 같은 정렬 값은 회원 id 로 순서를 고정한다.
+ * 켜져 있으면 MemberSearchCoalescer 가 검색을 여기로 보낸다.
+ */
+@Component
+@ConditionalOnProperty(name = "member.sharding.enabled", havingValue = "true")
+public class ShardedMemberSearch {
+
+    private static final String MEMBER_WITH_TEAM = "select m from Member m left join fetch m.team";
+
+    private final ShardRouter shardRouter;
+    private final MemberRepositoryCustomImpl memberRepositoryCustom;
+    private final FetchSizePolicy fetchSizePolicy;
+    private final ExecutorService executor;
+
+    public ShardedMemberSearch(ShardRouter shardRouter,
+                               MemberRepositoryCustomImpl memberRepositoryCustom,
+                               FetchSizePolicy fetchSizePolicy,
+                               @Value("${member.sharding.parallelism:8}") int parallelism) {
+        this.shardRouter = shardRouter;
+        this.memberRepositoryCustom = memberRepositoryCustom;
+        this.fetchSizePolicy = fetchSizePolicy;
+        this.executor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    /**
+     * 회원 id 순
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        List<List<MemberTeamDto>> partials = scatter(shardRouter.shards(), shard -> fetch(shard, condition,
+                new OrderSpecifier<?>[]{member.id.asc()}, null));
+        return merge(partials, comparator(Sort.unsorted()), 0, Integer.MAX_VALUE);
+    }
+
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable, CountMode countMode) {
+        return switch (countMode) {
+            case EXACT -> searchPageSimple(condition, pageable);
+            case AUTO -> searchPageComplex(condition, pageable);
+            case NONE -> searchPageWithoutCount(condition, pageable);
+        };
+    }
+
+    /**
+     * 항상 샤드별 count 의 합을 구한다.
+     */
+    public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return new PageImpl<>(content(condition, pageable), pageable, count(condition));
+    }
+
+    /**
+     * 전체 개수는 샤드별 count 의 합, PageableExecutionUtils 가 생략 가능하다고 판단하면 실행하지 않는다.
+     */
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        return PageableExecutionUtils.getPage(content(condition, pageable), pageable, () -> count(condition));
+    }
+
+    /**
+     * count 없이 샤드마다 한 건 더 읽어서 병합 결과로 다음 페이지 유무만 판단한다.
+     */
+    public Page<MemberTeamDto> searchPageWithoutCount(MemberSearchCondition condition, Pageable pageable) {
+        Sort sort = pageable.getSort();
+        long window = pageable.getOffset() + pageable.getPageSize() + 1;
+        List<List<MemberTeamDto>> partials = scatter(shardRouter.shards(), shard -> fetch(shard, condition,
+                orderSpecifiers(sort), window));
+        List<MemberTeamDto> rows = merge(partials, comparator(sort), pageable.getOffset(), pageable.getPageSize() + 1);
+
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<MemberTeamDto> content = hasNext ? new ArrayList<>(rows.subList(0, pageable.getPageSize())) : rows;
+        long total = pageable.getOffset() + content.size() + (hasNext ? 1 : 0);
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * 병합한 MemberTeamDto 페이지에서 요청한 필드만 꺼낸다.
+     * 단일 DB 처럼 필드별 select 를 하지는 않지만, 병합에 정렬 키와 id 가 필요해서 샤드에서는 전체 컬럼을 읽는다.
+     */
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, Set<MemberField> fields,
+                                                      Pageable pageable, CountMode countMode) {
+        List<MemberField> selected = List.copyOf(fields);
+        return searchPage(condition, pageable, countMode).map(dto -> {
+            Map<String, Object> row = new LinkedHashMap<>(selected.size() * 2);
+            for (MemberField field : selected) {
+                row.put(field.getFieldName(), field.valueOf(dto));
+            }
+            return row;
+        });
+    }
+
+    /**
+     * id 가 속한 샤드만 조회한다. 샤드 순서로 이어 붙인다.
+     */
+    public List<MemberTeamDto> searchByIds(Collection<Long> memberIds) {
+        if (memberIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Shard, List<Long>> groups = shardRouter.groupByShard(memberIds);
+        return scatter(List.copyOf(groups.keySet()), shard -> shard.read(queryFactory ->
+                        memberRepositoryCustom.selectMemberTeamDto(queryFactory)
+                                .where(member.id.in(groups.get(shard)))
+                                .fetch()))
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * 샤드를 차례로 커서로 읽는다. 샤드 간 순서는 정하지 않고, 다 읽거나 닫으면 샤드의 EntityManager 도 닫힌다.
+     */
+    public Stream<MemberTeamDto> streamSearch(MemberSearchCondition condition) {
+        return shardRouter.shards().stream()
+                .flatMap(shard -> shard.stream(queryFactory -> memberRepositoryCustom.selectMemberTeamDto(queryFactory)
+                        .where(memberRepositoryCustom.searchFilter(condition))
+                        .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSizePolicy.unpaged())
+                        .stream()));
+    }
+
+    /**
+     * 팀을 fetch join 해서 읽은 준영속 회원, 모든 샤드에서 찾는다.
+     */
+    public List<Member> findDetachedByUsername(String username) {
+        return scatter(shardRouter.shards(), shard -> shard.readEntities(em -> em
+                        .createQuery(MEMBER_WITH_TEAM + " where m.username = :username", Member.class)
+                        .setParameter("username", username)
+                        .getResultList()))
+                .stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * 팀을 fetch join 해서 읽은 준영속 회원
+     */
+    public Optional<Member> findById(Long memberId) {
+        return shardRouter.shardOf(memberId).readEntities(em -> em
+                .createQuery(MEMBER_WITH_TEAM + " where m.id = :id", Member.class)
+                .setParameter("id", memberId)
+                .getResultStream()
+                .findFirst());
+    }
+
+    private List<MemberTeamDto> content(MemberSearchCondition condition, Pageable pageable) {
+        Sort sort = pageable.getSort();
+        long window = pageable.getOffset() + pageable.getPageSize();
+        List<List<MemberTeamDto>> partials = scatter(shardRouter.shards(), shard -> fetch(shard, condition,
+                orderSpecifiers(sort), window));
+        return merge(partials, comparator(sort), pageable.getOffset(), pageable.getPageSize());
+    }
+
+    private long count(MemberSearchCondition condition) {
+        return scatter(shardRouter.shards(), shard -> shard.read(queryFactory ->
+                        memberRepositoryCustom.countMember(queryFactory)
+                                .where(memberRepositoryCustom.searchFilter(condition))
+                                .fetchOne()))
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    /**
+     * @param limit null 이면 전부
+     */
+    private List<MemberTeamDto> fetch(Shard shard, MemberSearchCondition condition, OrderSpecifier<?>[] order,
+                                      Long limit) {
+        return shard.read(queryFactory -> {
+            JPAQuery<MemberTeamDto> query = memberRepositoryCustom.selectMemberTeamDto(queryFactory)
+                    .where(memberRepositoryCustom.searchFilter(condition))
+                    .orderBy(order);
+            return limit == null ? query.fetch() : query.limit(limit).fetch();
+        });
+    }
+
+    private <T> List<T> scatter(List<Shard> shards, Function<Shard, T> query) {
+        if (shards.size() == 1) {
+            return List.of(query.apply(shards.get(0)));
+        }
+        List<CompletableFuture<T>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(QueryScope.propagate(() -> query.apply(shard)), executor))
+                .toList();
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            try {
+                results.add(future.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 샤드별로 정렬된 결과를 우선순위 큐로 병합하면서 앞의 offset 개를 건너뛰고 limit 개만 모은다.
+     */
+    static List<MemberTeamDto> merge(List<List<MemberTeamDto>> partials, Comparator<MemberTeamDto> order,
+                                     long offset, int limit) {
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Math.max(1, partials.size()),
+                (a, b) -> order.compare(a.head, b.head));
+        for (List<MemberTeamDto> partial : partials) {
+            Iterator<MemberTeamDto> rows = partial.iterator();
+            if (rows.hasNext()) {
+                heap.add(new Cursor(rows.next(), rows));
+            }
+        }
+
+        List<MemberTeamDto> result = new ArrayList<>();
+        long skipped = 0;
+        while (!heap.isEmpty() && result.size() < limit) {
+            Cursor cursor = heap.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                result.add(cursor.head);
+            }
+            if (cursor.rows.hasNext()) {
+                cursor.head = cursor.rows.next();
+                heap.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * DB 정렬과 같은 순서여야 병합 결과가 맞다. (H2 기본: 오름차순에서 null 이 먼저)
+     * 같은 값이면 회원 id 순으로 정렬해서 순서를 고정한다. 회원 id 는 샤드 간에도 유일하다.
+     */
+    static Comparator<MemberTeamDto> comparator(Sort sort) {
+        Comparator<MemberTeamDto> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<MemberTeamDto> next = switch (order.getProperty()) {
+                case "memberId", "id" -> Comparator.comparing(MemberTeamDto::getMemberId,
+                        Comparator.nullsFirst(Comparator.<Long>naturalOrder()));
+                case "username" -> Comparator.comparing(MemberTeamDto::getUsername,
+                        Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+                case "age" -> Comparator.comparingInt(MemberTeamDto::getAge);
+                default -> throw new IllegalArgumentException("정렬할 수 없는 속성입니다: " + order.getProperty());
+            };
+            if (order.isDescending()) {
+                next = next.reversed();
+            }
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<MemberTeamDto> byId = Comparator.comparing(MemberTeamDto::getMemberId);
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    static OrderSpecifier<?>[] orderSpecifiers(Sort sort) {
+        List<OrderSpecifier<?>> specifiers = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = switch (order.getProperty()) {
+                case "memberId", "id" -> member.id;
+                case "username" -> member.username;
+                case "age" -> member.age;
+                default -> throw new IllegalArgumentException("정렬할 수 없는 속성입니다: " + order.getProperty());
+            };
+            specifiers.add(order.isAscending() ? path.asc() : path.desc());
+        }
+        specifiers.add(member.id.asc());
+        return specifiers.toArray(OrderSpecifier[]::new);
+    }
+
+    private static class Cursor {
+        MemberTeamDto head;
+        final Iterator<MemberTeamDto> rows;
+
+        Cursor(MemberTeamDto head, Iterator<MemberTeamDto> rows) {
+            this.head = head;
+            this.rows = rows;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+}
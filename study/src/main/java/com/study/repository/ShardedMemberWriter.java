@@ -0,0 +1,188 @@
+package com.study.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.entity.DataVersion;
+import com.study.entity.Member;
+import com.study.entity.Team;
+import com.study.shard.Shard;
+import com.study.shard.ShardRouter;
+import org.hibernate.Session;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static com.study.entity.QMember.member;
+import static com.study.entity.QTeam.team;
+
+/**
+ * 샤드된 회원 쓰기 (member.sharding.enabled=true)
+ * 회원은 id 가 가리키는 샤드(ShardRouter.shardOf)에, 새 회원은 ShardRouter.shardForNew 가 고른 샤드에 쓴다.
+ * 팀은 샤드 0 에서 id 를 받아 모든 샤드에 같은 id 로 복제하므로, 팀 이동과 팀명 변경은 샤드 안에서 끝나고 회원은 샤드를 옮기지 않는다.
+ * <p>
+ * 주의
+ * - 트랜잭션은 샤드마다 따로다. 여러 샤드에 걸친 쓰기(팀 생성/팀명 변경, 여러 샤드의 회원)는 일부 샤드만 반영될 수 있다.
+ * - 변경 피드(ChangeOutbox)는 기본 DataSource 의 변경만 기록한다. 샤드 변경은 DataVersion 만 올린다.
+ * - 벌크 연산이라 호출자의 영속성 컨텍스트와는 무관하다. 반환한 엔티티는 준영속이다.
+ */
+@Component
+@ConditionalOnProperty(name = "member.sharding.enabled", havingValue = "true")
+public class ShardedMemberWriter {
+
+    private final ShardRouter shardRouter;
+
+    public ShardedMemberWriter(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    /**
+     * 샤드 0 에서 id 를 받아 저장하고, 나머지 샤드에 같은 id 로 넣는다.
+     */
+    public Team createTeam(String name) {
+        List<Shard> shards = shardRouter.shards();
+        Team created = shards.get(0).inTransaction(em -> {
+            Team team = new Team(name);
+            em.persist(team);
+            return team;
+        });
+        for (Shard shard : shards.subList(1, shards.size())) {
+            shard.write(em -> em.createNativeQuery("insert into team (team_id, name, version) values (?, ?, ?)")
+                    .setParameter(1, created.getId())
+                    .setParameter(2, created.getName())
+                    .setParameter(3, created.getVersion())
+                    .executeUpdate());
+        }
+        DataVersion.increment();
+        return created;
+    }
+
+    /**
+     * 새 회원 저장, 팀은 createTeam 으로 만든 팀이어야 한다.
+     */
+    public Member saveMember(Member newMember) {
+        Member saved = shardRouter.shardForNew(newMember.getUsername()).inTransaction(em -> {
+            em.persist(newMember);
+            return newMember;
+        });
+        DataVersion.increment();
+        return saved;
+    }
+
+    /**
+     * MemberRepository.incrementAge 와 같다. 샤드별로 나눠 샤드마다 한 트랜잭션으로 실행한다.
+     */
+    public long incrementAge(Collection<Long> memberIds, int delta) {
+        long count = 0;
+        for (Map.Entry<Shard, List<Long>> group : shardRouter.groupByShard(memberIds).entrySet()) {
+            count += group.getKey().inTransaction(em -> new JPAQueryFactory(em)
+                    .update(member)
+                    .set(member.age, member.age.add(delta))
+                    .set(member.version, member.version.add(1L))
+                    .where(member.id.in(group.getValue()))
+                    .execute());
+            DataVersion.increment();
+        }
+        return count;
+    }
+
+    /**
+     * MemberRepository.moveMembers 와 같다. 팀명은 각 샤드에 복제된 팀에서 읽는다.
+     */
+    public long moveMembers(Long teamId, Collection<Long> memberIds) {
+        long count = 0;
+        for (Map.Entry<Shard, List<Long>> group : shardRouter.groupByShard(memberIds).entrySet()) {
+            count += group.getKey().inTransaction(em -> {
+                JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+                Team target = teamId == null ? null : em.getReference(Team.class, teamId);
+                String teamName = teamId == null ? null : queryFactory
+                        .select(team.name)
+                        .from(team)
+                        .where(team.id.eq(teamId))
+                        .fetchOne();
+                return queryFactory
+                        .update(member)
+                        .set(member.team, target)
+                        .set(member.teamName, teamName)
+                        .set(member.version, member.version.add(1L))
+                        .where(member.id.in(group.getValue()))
+                        .execute();
+            });
+            DataVersion.increment();
+        }
+        return count;
+    }
+
+    /**
+     * 모든 샤드의 팀명과 그 팀 회원의 팀명을 바꾼다. (TeamService.rename)
+     *
+     * @return 팀명이 바뀐 회원 수
+     */
+    public long renameTeam(Long teamId, String name) {
+        if (shardRouter.shards().get(0).readEntities(em -> em.find(Team.class, teamId)) == null) {
+            throw new IllegalArgumentException("팀이 없습니다. id=" + teamId);
+        }
+        long count = 0;
+        for (Shard shard : shardRouter.shards()) {
+            count += shard.inTransaction(em -> {
+                JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+                queryFactory
+                        .update(team)
+                        .set(team.name, name)
+                        .set(team.version, team.version.add(1L))
+                        .where(team.id.eq(teamId))
+                        .execute();
+                return updateTeamName(queryFactory, teamId, name);
+            });
+            DataVersion.increment();
+        }
+        return count;
+    }
+
+    /**
+     * MemberRepository.updateTeamName 과 같다. 팀의 회원은 모든 샤드에 있으므로 모든 샤드에 쓴다.
+     */
+    public long updateTeamName(Long teamId, String teamName) {
+        long count = 0;
+        for (Shard shard : shardRouter.shards()) {
+            count += shard.inTransaction(em -> updateTeamName(new JPAQueryFactory(em), teamId, teamName));
+            DataVersion.increment();
+        }
+        return count;
+    }
+
+    /**
+     * JDBC 로 직접 쓰는 경우(MemberWriteBehindBuffer), 회원 id 를 샤드별로 나눠 샤드 커넥션과 함께 넘긴다.
+     */
+    public void doWork(Collection<Long> memberIds, ShardWork work) {
+        for (Map.Entry<Shard, List<Long>> group : shardRouter.groupByShard(memberIds).entrySet()) {
+            group.getKey().write(em -> em.unwrap(Session.class)
+                    .doWork(connection -> work.execute(connection, group.getValue())));
+            DataVersion.increment();
+        }
+    }
+
+    /**
+     * 회원 id 를 샤드별로 나눈다. 샤드 안에서는 받은 순서를 유지한다.
+     */
+    public Collection<List<Long>> groupByShard(Collection<Long> memberIds) {
+        return shardRouter.groupByShard(memberIds).values();
+    }
+
+    private static long updateTeamName(JPAQueryFactory queryFactory, Long teamId, String teamName) {
+        return queryFactory
+                .update(member)
+                .set(member.teamName, teamName)
+                .set(member.version, member.version.add(1L))
+                .where(member.team.id.eq(teamId))
+                .execute();
+    }
+
+    @FunctionalInterface
+    public interface ShardWork {
+        void execute(Connection connection, List<Long> memberIds) throws SQLException;
+    }
+}
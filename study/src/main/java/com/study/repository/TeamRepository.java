@@ -0,0 +1,7 @@
+package com.study.repository;
+
+import com.study.entity.Team;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface TeamRepository extends JpaRepository<Team, Long> {
+}
@@ -0,0 +1,12 @@
+package com.study.repository;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+public class TenantBusyException extends RuntimeException {
+
+    public TenantBusyException(String tenant, int maxConcurrent) {
+        super("테넌트 동시 검색 한도 초과 [" + tenant + "] max=" + maxConcurrent);
+    }
+}
@@ -0,0 +1,129 @@
+package com.study.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 테넌트별 자원 한도
+ * - 동시 검색 수: DB 를 쓰는 검색 실행을 테넌트마다 max-concurrent-searches 개로 제한해서, 한 테넌트가 커넥션 풀을 다 쓰지 못하게 한다.
+ *   acquire-timeout 안에 자리가 나지 않으면 TenantBusyException(429)
+ * - 캐시 한도: 검색 결과 캐시(MemberSearchCoalescer 의 window 재사용)에 테넌트마다 cache-quota 개까지만 남긴다.
+ * tenantId 가 없으면 기본 테넌트(DEFAULT_TENANT)로 센다.
+ * 테넌트 id 는 헤더 값이므로 형식(TENANT_PATTERN)을 검사하고, 따로 세는 테넌트는 max-tenants 개까지만 둔다.
+ * 그 이후에 처음 보는 테넌트는 OVERFLOW_TENANT 하나로 묶어서 세므로, 맵 크기와 메트릭 태그 종류가 늘어나지 않는다.
+ */
+@Component
+public class TenantSearchLimiter {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    /**
+     * max-tenants 를 넘은 테넌트들이 함께 쓰는 한도, TENANT_PATTERN 에 맞지 않아서 실제 테넌트와 겹치지 않는다.
+     */
+    public static final String OVERFLOW_TENANT = "~overflow";
+
+    private static final Pattern TENANT_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final int maxConcurrent;
+    private final long acquireTimeoutMillis;
+    private final int cacheQuota;
+    private final int maxTenants;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> cached = new ConcurrentHashMap<>();
+
+    public TenantSearchLimiter(MeterRegistry meterRegistry,
+                               @Value("${member.tenancy.max-concurrent-searches:4}") int maxConcurrent,
+                               @Value("${member.tenancy.acquire-timeout:100ms}") Duration acquireTimeout,
+                               @Value("${member.tenancy.cache-quota:64}") int cacheQuota,
+                               @Value("${member.tenancy.max-tenants:1000}") int maxTenants) {
+        this.meterRegistry = meterRegistry;
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutMillis = acquireTimeout.toMillis();
+        this.cacheQuota = cacheQuota;
+        this.maxTenants = maxTenants;
+    }
+
+    public static String tenantOf(String tenantId) {
+        return tenantId == null || tenantId.isEmpty() ? DEFAULT_TENANT : tenantId;
+    }
+
+    /**
+     * 영문, 숫자, '_', '-' 로 된 64자 이하
+     */
+    public static boolean isValidTenant(String tenantId) {
+        return tenantId != null && TENANT_PATTERN.matcher(tenantId).matches();
+    }
+
+    /**
+     * 한도와 메트릭을 셀 테넌트, 이미 센 테넌트이거나 max-tenants 에 여유가 있으면 그 테넌트, 아니면 OVERFLOW_TENANT
+     * 동시에 처음 보는 테넌트가 여럿 들어오면 max-tenants 를 조금 넘을 수 있다.
+     */
+    String bucketOf(String tenantId) {
+        String tenant = tenantOf(tenantId);
+        if (permits.containsKey(tenant) || permits.size() < maxTenants) {
+            return tenant;
+        }
+        return OVERFLOW_TENANT;
+    }
+
+    public <T> T execute(String tenantId, Supplier<T> search) {
+        String tenant = bucketOf(tenantId);
+        Semaphore semaphore = permits.computeIfAbsent(tenant, t -> new Semaphore(maxConcurrent));
+        boolean acquired;
+        try {
+            acquired = semaphore.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TenantBusyException(tenant, maxConcurrent);
+        }
+        if (!acquired) {
+            meterRegistry.counter("member.tenant.search.rejected", "tenant", tenant).increment();
+            throw new TenantBusyException(tenant, maxConcurrent);
+        }
+        try {
+            return search.get();
+        } finally {
+            semaphore.release();
+        }
+    }
+
+    /**
+     * 캐시에 결과를 하나 남겨도 되면 true, 남겼으면 나중에 releaseCache() 를 호출해야 한다.
+     */
+    public boolean tryRetain(String tenantId) {
+        AtomicInteger count = cached.computeIfAbsent(bucketOf(tenantId), t -> new AtomicInteger());
+        while (true) {
+            int current = count.get();
+            if (current >= cacheQuota) {
+                return false;
+            }
+            if (count.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void releaseCache(String tenantId) {
+        AtomicInteger count = cached.get(bucketOf(tenantId));
+        if (count != null) {
+            count.decrementAndGet();
+        }
+    }
+
+    int cachedEntries(String tenantId) {
+        AtomicInteger count = cached.get(bucketOf(tenantId));
+        return count == null ? 0 : count.get();
+    }
+}
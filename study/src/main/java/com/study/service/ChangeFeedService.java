@@ -0,0 +1,211 @@
+package com.study.service;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.study.dto.ChangeBatch;
+import com.study.dto.ChangeDto;
+import com.study.dto.MemberTeamDto;
+import com.study.entity.ChangeEvent;
+import com.study.entity.ChangeOperation;
+import com.study.repository.ChangeOutbox;
+import com.study.repository.MemberRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.study.entity.QChangeEvent.changeEvent;
+
+/**
+ * change_event 를 seq 순으로 읽어 변경분을 내려준다. (/members/changes)
+ * 회원 변경에는 현재 값을 한 번의 in 쿼리로 붙여서, 소비자가 페이지 전체를 다시 읽지 않고 반영할 수 있게 한다.
+ * 새 변경이 없으면 long-poll 로 기다렸다가, 변경이 커밋되면 바로 응답한다.
+ * watermark 는 이 인스턴스의 트랜잭션만 보므로 단일 노드에서만 순서를 보장한다. (ChangeOutbox)
+ * 전달은 스프링이 관리하는 applicationTaskExecutor 에서 실행되어 종료 시 함께 정리된다.
+ */
+@Slf4j
+@Service
+public class ChangeFeedService {
+
+    private final EntityManager em;
+    private final ChangeOutbox changeOutbox;
+    private final JPAQueryFactory queryFactory;
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate readOnly;
+    private final int maxLimit;
+    private final Duration maxWait;
+
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicBoolean deliveryScheduled = new AtomicBoolean();
+    private final TaskExecutor delivery;
+    private final Runnable commitListener = this::committed;
+
+    public ChangeFeedService(EntityManager em,
+                             ChangeOutbox changeOutbox,
+                             MemberRepository memberRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor delivery,
+                             @Value("${member.changes.max-limit:1000}") int maxLimit,
+                             @Value("${member.changes.max-wait:30s}") Duration maxWait) {
+        this.em = em;
+        this.changeOutbox = changeOutbox;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.memberRepository = memberRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.maxLimit = maxLimit;
+        this.maxWait = maxWait;
+        this.delivery = delivery;
+    }
+
+    @PostConstruct
+    public void start() {
+        changeOutbox.onCommit(commitListener);
+    }
+
+    /**
+     * since 보다 큰 seq 를 limit 개까지, 아직 커밋되지 않았을 수 있는 seq 앞에서 멈춘다.
+     */
+    public ChangeBatch read(long since, int limit) {
+        int size = Math.max(1, Math.min(limit, maxLimit));
+        return readOnly.execute(status -> {
+            long watermark = changeOutbox.watermark(em.unwrap(Session.class));
+            List<ChangeEvent> events = queryFactory
+                    .selectFrom(changeEvent)
+                    .where(changeEvent.seq.gt(since),
+                            changeEvent.seq.loe(watermark))
+                    .orderBy(changeEvent.seq.asc())
+                    .limit(size)
+                    .fetch();
+
+            List<Long> memberIds = events.stream()
+                    .filter(e -> e.getEntityType().equals("Member") && e.getOperation() != ChangeOperation.DELETE)
+                    .map(ChangeEvent::getEntityId)
+                    .distinct()
+                    .toList();
+            Map<Long, MemberTeamDto> members = memberRepository.searchByIds(memberIds).stream()
+                    .collect(Collectors.toMap(MemberTeamDto::getMemberId, Function.identity()));
+
+            List<ChangeDto> changes = events.stream()
+                    .map(e -> new ChangeDto(e.getSeq(), e.getEntityType(), e.getEntityId(),
+                            e.getOperation().name(),
+                            e.getEntityType().equals("Member") ? members.get(e.getEntityId()) : null))
+                    .toList();
+            long nextSince = events.isEmpty() ? since : events.get(events.size() - 1).getSeq();
+            return new ChangeBatch(changes, nextSince);
+        });
+    }
+
+    /**
+     * 지금까지의 마지막 seq, 처음 구독하는 소비자는 여기서부터 받으면 된다.
+     */
+    public long head() {
+        return readOnly.execute(status -> changeOutbox.watermark(em.unwrap(Session.class)));
+    }
+
+    /**
+     * 변경이 있으면 바로, 없으면 wait 동안 기다렸다가 응답한다. 끝까지 없으면 빈 배치
+     */
+    public DeferredResult<ChangeBatch> poll(long since, int limit, Duration wait) {
+        Duration timeout = wait.compareTo(maxWait) > 0 ? maxWait : wait;
+        DeferredResult<ChangeBatch> result = new DeferredResult<>(timeout.toMillis());
+
+        long seen = commits.get();
+        ChangeBatch batch = read(since, limit);
+        if (!batch.getChanges().isEmpty() || timeout.isZero() || timeout.isNegative()) {
+            result.setResult(batch);
+            return result;
+        }
+
+        Waiter waiter = new Waiter(since, limit, result);
+        waiters.add(waiter);
+        result.onTimeout(() -> {
+            waiters.remove(waiter);
+            result.setResult(new ChangeBatch(List.of(), since));
+        });
+        result.onCompletion(() -> waiters.remove(waiter));
+        // 읽은 뒤 등록하기 전에 커밋된 변경이 있으면 놓치지 않도록 한 번 더 확인
+        if (commits.get() != seen) {
+            scheduleDelivery();
+        }
+        return result;
+    }
+
+    private void committed() {
+        commits.incrementAndGet();
+        if (!waiters.isEmpty()) {
+            scheduleDelivery();
+        }
+    }
+
+    /**
+     * 커밋이 몰려도 전달 작업은 하나만 대기시킨다.
+     */
+    private void scheduleDelivery() {
+        if (deliveryScheduled.compareAndSet(false, true)) {
+            delivery.execute(() -> {
+                deliveryScheduled.set(false);
+                deliver();
+            });
+        }
+    }
+
+    /**
+     * 소비자들은 대부분 같은 since 에서 기다리므로, since 별로 가장 큰 limit 으로 한 번 읽고 나눠 준다.
+     */
+    private void deliver() {
+        Map<Long, List<Waiter>> bySince = waiters.stream().collect(Collectors.groupingBy(Waiter::since));
+        bySince.forEach((since, group) -> {
+            try {
+                int limit = group.stream().mapToInt(Waiter::limit).max().orElse(1);
+                ChangeBatch batch = read(since, limit);
+                if (batch.getChanges().isEmpty()) {
+                    return;
+                }
+                for (Waiter waiter : group) {
+                    if (waiters.remove(waiter)) {
+                        waiter.result().setResult(truncate(batch, waiter.limit()));
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.warn("change feed delivery failed, since={}", since, e);
+            }
+        });
+    }
+
+    private static ChangeBatch truncate(ChangeBatch batch, int limit) {
+        List<ChangeDto> changes = batch.getChanges();
+        if (changes.size() <= Math.max(1, limit)) {
+            return batch;
+        }
+        List<ChangeDto> head = changes.subList(0, Math.max(1, limit));
+        return new ChangeBatch(List.copyOf(head), head.get(head.size() - 1).getSeq());
+    }
+
+    @PreDestroy
+    public void close() {
+        changeOutbox.removeOnCommit(commitListener);
+    }
+
+    private record Waiter(long since, int limit, DeferredResult<ChangeBatch> result) {
+    }
+}
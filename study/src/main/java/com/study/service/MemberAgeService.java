@@ -0,0 +1,104 @@
+package com.study.service;
+
+import com.study.repository.MemberRepository;
+import com.study.repository.ShardedMemberWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 경합이 많은 나이 변경을 비관적 락 없이 처리한다.
+ * - id 를 정렬해 chunk 단위 벌크 증가(age = age + delta), 항상 같은 순서로 행 락을 잡아 교착을 피한다.
+ * - chunk 마다 트랜잭션을 나눠 락 보유 시간을 줄이고, 락 타임아웃/낙관적 락 충돌은 지수 백오프로 재시도한다.
+ * - 샤딩이 켜져 있으면 chunk 를 샤드 안에서만 나눈다. 샤드마다 트랜잭션이 따로라서, 샤드를 넘는 chunk 를 재시도하면
+ *   이미 커밋한 샤드의 회원 나이가 두 번 오른다.
+ */
+@Slf4j
+@Service
+public class MemberAgeService {
+
+    private final MemberRepository memberRepository;
+    /**
+     * 샤딩이 꺼져 있으면 null
+     */
+    private final ShardedMemberWriter shardedWriter;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxAttempts;
+    private final Duration backoff;
+
+    public MemberAgeService(MemberRepository memberRepository,
+                            ObjectProvider<ShardedMemberWriter> shardedWriter,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${member.age-update.chunk-size:500}") int chunkSize,
+                            @Value("${member.age-update.max-attempts:5}") int maxAttempts,
+                            @Value("${member.age-update.backoff:10ms}") Duration backoff) {
+        this.memberRepository = memberRepository;
+        this.shardedWriter = shardedWriter.getIfAvailable();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+    }
+
+    public long incrementAge(Collection<Long> memberIds, int delta) {
+        List<Long> ids = memberIds.stream().distinct().sorted().toList();
+        if (shardedWriter == null) {
+            return incrementInChunks(ids,
+                    chunk -> transactionTemplate.execute(status -> memberRepository.incrementAge(chunk, delta)));
+        }
+        long updated = 0;
+        for (List<Long> shardIds : shardedWriter.groupByShard(ids)) {
+            updated += incrementInChunks(shardIds, chunk -> shardedWriter.incrementAge(chunk, delta));
+        }
+        return updated;
+    }
+
+    private long incrementInChunks(List<Long> ids, Function<List<Long>, Long> increment) {
+        long updated = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            updated += retry(() -> increment.apply(chunk));
+        }
+        return updated;
+    }
+
+    /**
+     * 실패한 트랜잭션은 롤백됐으므로 같은 작업을 다시 실행해도 안전하다.
+     */
+    private <T> T retry(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                long maxSleep = backoff.toMillis() << (attempt - 1);
+                long sleep = ThreadLocalRandom.current().nextLong(maxSleep + 1);
+                log.debug("age update conflict, retry {}/{} after {}ms: {}", attempt, maxAttempts, sleep, e.getMessage());
+                sleepQuietly(sleep);
+            }
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("재시도 대기 중 인터럽트", e);
+        }
+    }
+}
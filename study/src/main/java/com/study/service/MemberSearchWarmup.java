@@ -0,0 +1,256 @@
+package com.study.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.dto.MemberField;
+import com.study.dto.MemberSearchCondition;
+import com.study.dto.MemberTeamDto;
+import com.study.repository.CountMode;
+import com.study.repository.MemberRepository;
+import com.study.repository.ShardedMemberSearch;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 배포 직후 첫 요청이 느린 문제(하이버네이트 쿼리 플랜, Querydsl 직렬화, Q 타입/프로젝션 클래스 로딩, Jackson 직렬화기)를
+ * 준비 상태(readiness) 전에 미리 겪게 한다.
+ * MemberRepositoryCustomImpl 의 쿼리 형태를 읽기 전용 트랜잭션에서 iterations 번 실행하고, 결과를 JSON 으로 직렬화해 본다.
+ * ApplicationRunner 는 readiness 가 ACCEPTING_TRAFFIC 으로 바뀌기 전에 실행되므로, 끝날 때까지 /actuator/health/readiness 는 OUT_OF_SERVICE 다.
+ * 형태별 소요 시간은 member.warmup{shape}, 전체는 member.warmup.total 로 남는다.
+ * 모든 형태에 warmup 테넌트 조건을 붙여 (tenant_id, username) 인덱스로 빈 결과만 읽으므로, 회원 수와 상관없이 짧게 끝난다.
+ * default 테넌트(X-Tenant-Id 없는 요청)는 tenant_id is null or ... 로 SQL 이 다르므로 따로 데운다.
+ * 이때는 테넌트로 좁힐 수 없어서 ageGoe=1, ageLoe=0 으로 결과를 비운다. 나이 조건이 들어간 형태만 데워지고, 나이 인덱스가 없어 테이블을 훑는다.
+ * 샤딩이 켜져 있으면 샤드마다 EntityManagerFactory(플랜 캐시)가 따로 있으므로 ShardedMemberSearch 경로도 데운다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class MemberSearchWarmup implements ApplicationRunner {
+
+    static final String WARMUP_TENANT = "warmup";
+    /**
+     * 팀 조인이 없는 회원 컬럼만 / 전체
+     */
+    static final List<Set<MemberField>> FIELD_SETS = List.of(
+            EnumSet.of(MemberField.MEMBER_ID, MemberField.USERNAME, MemberField.AGE),
+            EnumSet.allOf(MemberField.class));
+
+    private final MemberRepository memberRepository;
+    private final ShardedMemberSearch shardedSearch;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate readOnly;
+    private final int iterations;
+    private final boolean failOnError;
+
+    public MemberSearchWarmup(MemberRepository memberRepository,
+                              ObjectProvider<ShardedMemberSearch> shardedSearch,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${member.warmup.iterations:3}") int iterations,
+                              @Value("${member.warmup.fail-on-error:false}") boolean failOnError) {
+        this.memberRepository = memberRepository;
+        this.shardedSearch = shardedSearch.getIfAvailable();
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.iterations = iterations;
+        this.failOnError = failOnError;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        Map<String, Runnable> shapes = shapes();
+        for (int i = 0; i < iterations; i++) {
+            shapes.forEach(this::execute);
+        }
+        long elapsed = System.nanoTime() - start;
+        meterRegistry.timer("member.warmup.total").record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("member search warm-up finished: shapes={}, iterations={}, {}ms",
+                shapes.size(), iterations, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    private void execute(String shape, Runnable query) {
+        Timer timer = meterRegistry.timer("member.warmup", "shape", shape);
+        long start = System.nanoTime();
+        try {
+            readOnly.executeWithoutResult(status -> {
+                query.run();
+                status.setRollbackOnly();
+            });
+        } catch (RuntimeException e) {
+            if (failOnError) {
+                throw e;
+            }
+            log.warn("member search warm-up failed: shape={}", shape, e);
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 검색 조건은 조합마다 SQL 이 달라지므로, 테넌트만/조건 하나씩/전체 조건을 돌린다.
+     * offset 이 0 인 첫 페이지와 아닌 페이지도 SQL 이 다르다.
+     */
+    private Map<String, Runnable> shapes() {
+        MemberSearchCondition empty = condition(c -> {});
+        MemberSearchCondition full = condition(MemberSearchWarmup::fillAll);
+        List<Pageable> pages = List.of(PageRequest.of(0, 20), PageRequest.of(1, 20));
+
+        Map<String, Runnable> shapes = new LinkedHashMap<>();
+        shapes.put("search", () -> memberRepository.search(empty));
+        singleConditions().forEach((name, condition) ->
+                shapes.put("search." + name, () -> memberRepository.search(condition)));
+        shapes.put("search.all", () -> memberRepository.search(full));
+
+        for (CountMode countMode : CountMode.values()) {
+            shapes.put("searchPage." + countMode, () -> {
+                for (Pageable page : pages) {
+                    serialize(memberRepository.searchPage(empty, page, countMode));
+                    serialize(memberRepository.searchPage(full, page, countMode));
+                }
+            });
+        }
+        shapes.put("searchPageFields", () -> {
+            for (Set<MemberField> fields : FIELD_SETS) {
+                serialize(memberRepository.searchPageFields(empty, fields, pages.get(0)));
+                serialize(memberRepository.searchPageFields(full, fields, pages.get(0)));
+            }
+        });
+        shapes.put("searchBatch", () -> {
+            MemberSearchCondition first = condition(c -> c.setUsername("warmup1"));
+            MemberSearchCondition second = condition(c -> c.setUsername("warmup2"));
+            memberRepository.searchBatch(List.of(first, second, empty));
+        });
+        shapes.put("searchByIds", () -> memberRepository.searchByIds(List.of(-1L)));
+        shapes.put("streamSearch", () -> {
+            try (Stream<MemberTeamDto> stream = memberRepository.streamSearch(full)) {
+                stream.count();
+            }
+        });
+        defaultTenantShapes(shapes, pages);
+        if (shardedSearch != null) {
+            shardedShapes(shapes, empty, full, pages);
+        }
+        return shapes;
+    }
+
+    private void defaultTenantShapes(Map<String, Runnable> shapes, List<Pageable> pages) {
+        MemberSearchCondition age = defaultTenantCondition(c -> {});
+        MemberSearchCondition full = defaultTenantCondition(MemberSearchWarmup::fillAll);
+
+        shapes.put("default.search.age", () -> memberRepository.search(age));
+        shapes.put("default.search.all", () -> memberRepository.search(full));
+        for (CountMode countMode : CountMode.values()) {
+            shapes.put("default.searchPage." + countMode, () -> {
+                for (Pageable page : pages) {
+                    serialize(memberRepository.searchPage(age, page, countMode));
+                    serialize(memberRepository.searchPage(full, page, countMode));
+                }
+            });
+        }
+        shapes.put("default.searchPageFields", () -> {
+            for (Set<MemberField> fields : FIELD_SETS) {
+                serialize(memberRepository.searchPageFields(age, fields, pages.get(0)));
+                serialize(memberRepository.searchPageFields(full, fields, pages.get(0)));
+            }
+        });
+        shapes.put("default.streamSearch", () -> {
+            try (Stream<MemberTeamDto> stream = memberRepository.streamSearch(full)) {
+                stream.count();
+            }
+        });
+    }
+
+    private void shardedShapes(Map<String, Runnable> shapes, MemberSearchCondition empty, MemberSearchCondition full,
+                               List<Pageable> pages) {
+        shapes.put("sharded.search", () -> {
+            shardedSearch.search(empty);
+            shardedSearch.search(full);
+        });
+        for (CountMode countMode : CountMode.values()) {
+            shapes.put("sharded.searchPage." + countMode, () -> {
+                for (Pageable page : pages) {
+                    serialize(shardedSearch.searchPage(empty, page, countMode));
+                    serialize(shardedSearch.searchPage(full, page, countMode));
+                }
+            });
+        }
+    }
+
+    private Map<String, MemberSearchCondition> singleConditions() {
+        Map<String, MemberSearchCondition> conditions = new LinkedHashMap<>();
+        conditions.put("username", condition(c -> c.setUsername("warmup")));
+        conditions.put("usernameContains", condition(c -> c.setUsernameContains("warmup")));
+        conditions.put("usernamePrefix", condition(c -> c.setUsernamePrefix("warmup")));
+        conditions.put("teamName", condition(c -> c.setTeamName("warmup")));
+        conditions.put("age", condition(c -> {
+            c.setAgeGoe(0);
+            c.setAgeLoe(200);
+        }));
+        return conditions;
+    }
+
+    private static void fillAll(MemberSearchCondition c) {
+        c.setUsername("warmup");
+        c.setUsernameContains("warmup");
+        c.setUsernamePrefix("warmup");
+        c.setTeamName("warmup");
+        c.setAgeGoe(0);
+        c.setAgeLoe(200);
+    }
+
+    /**
+     * 실제 회원이 없는 warmup 테넌트로 한정한다.
+     */
+    static MemberSearchCondition condition(Consumer<MemberSearchCondition> setter) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTenantId(WARMUP_TENANT);
+        setter.accept(condition);
+        return condition;
+    }
+
+    /**
+     * 테넌트 없이(default) 나이 범위를 비워서 실제 회원을 돌려주지 않는다.
+     */
+    static MemberSearchCondition defaultTenantCondition(Consumer<MemberSearchCondition> setter) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        setter.accept(condition);
+        condition.setTenantId(null);
+        condition.setAgeGoe(1);
+        condition.setAgeLoe(0);
+        return condition;
+    }
+
+    private void serialize(Page<?> page) {
+        try {
+            objectMapper.writeValueAsBytes(page);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.study.service;
+
+import com.study.entity.ChangeOperation;
+import com.study.entity.DataVersion;
+import com.study.entity.Member;
+import com.study.repository.ChangeOutbox;
+import com.study.repository.MemberRepository;
+import com.study.repository.ShardedMemberSearch;
+import com.study.repository.ShardedMemberWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 같은 회원의 나이/팀 변경이 초당 여러 번 일어나는 경우를 위한 쓰기 지연 버퍼 (member.write-behind.enabled=true)
+ * 변경은 회원 id 별로 하나로 합쳐 두었다가(마지막 값 우선), 주기마다 또는 대기 건수가 임계치를 넘으면 JDBC 배치로 반영한다.
+ * ConcurrentHashMap 은 버킷 단위로 락을 잡으므로 서로 다른 회원의 변경은 경합하지 않는다.
+ * <p>
+ * 주의
+ * - 반영 전 장애가 나면 대기 중인 변경은 사라진다. 잃어도 되는 고빈도 변경에만 쓴다.
+ * - 같은 노드의 findById 만 자기 쓰기를 읽는다. 다른 경로(검색, 다른 노드)는 반영 이후에 보인다.
+ * - JDBC 로 직접 쓰므로 영속성 컨텍스트와 Team.members 컬렉션에는 반영되지 않는다. (findById 가 쓴 회원만 refresh)
+ * - 배치 반영이 max-attempts 번 실패한 변경은 한 건씩 다시 써 보고, 그래도 실패하면 로그를 남기고 버린다. (member.write-behind.dropped)
+ * - 샤딩이 켜져 있으면 회원의 샤드에 샤드별 트랜잭션으로 쓴다. 변경은 절대값이라 일부 샤드만 반영된 배치를 다시 써도 결과가 같다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.write-behind.enabled", havingValue = "true")
+public class MemberWriteBehindBuffer {
+
+    private final MemberRepository memberRepository;
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final ChangeOutbox changeOutbox;
+    /**
+     * 샤딩이 꺼져 있으면 null
+     */
+    private final ShardedMemberWriter shardedWriter;
+    private final ShardedMemberSearch shardedSearch;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration flushInterval;
+    private final int batchSize;
+    private final int flushThreshold;
+    private final int maxAttempts;
+    private final Counter dropped;
+
+    private final Map<Long, PendingChange> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MemberWriteBehindBuffer(MemberRepository memberRepository,
+                                   EntityManager em,
+                                   JdbcTemplate jdbcTemplate,
+                                   ChangeOutbox changeOutbox,
+                                   ObjectProvider<ShardedMemberWriter> shardedWriter,
+                                   ObjectProvider<ShardedMemberSearch> shardedSearch,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${member.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                   @Value("${member.write-behind.batch-size:500}") int batchSize,
+                                   @Value("${member.write-behind.flush-threshold:5000}") int flushThreshold,
+                                   @Value("${member.write-behind.max-attempts:3}") int maxAttempts) {
+        this.memberRepository = memberRepository;
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+        this.changeOutbox = changeOutbox;
+        this.shardedWriter = shardedWriter.getIfAvailable();
+        this.shardedSearch = shardedSearch.getIfAvailable();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.flushInterval = flushInterval;
+        this.batchSize = batchSize;
+        this.flushThreshold = flushThreshold;
+        this.maxAttempts = maxAttempts;
+        this.dropped = meterRegistry.counter("member.write-behind.dropped");
+    }
+
+    /**
+     * 생성이 끝난 뒤에 시작한다. 생성자에서 시작하면 이후 초기화가 실패해도 스케줄러 스레드가 남고,
+     * 완성되지 않은 빈으로 flush 가 돌 수 있다. 종료는 close()
+     */
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::flushQuietly,
+                flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void changeAge(Long memberId, int age) {
+        enqueue(memberId, new PendingChange(age, false, null, 0));
+    }
+
+    /**
+     * @param teamId null 이면 팀에서 뺀다.
+     */
+    public void changeTeam(Long memberId, Long teamId) {
+        enqueue(memberId, new PendingChange(null, true, teamId, 0));
+    }
+
+    /**
+     * 대기 중인 변경이 있으면 먼저 반영하고 읽는다.
+     * flush 가 pending 에서 꺼내 쓰는 중인 변경은 pending 에 없으므로, 항상 flushLock 을 잡아 그 flush 가 끝난 뒤에 읽는다.
+     * 호출한 트랜잭션의 영속성 컨텍스트가 이미 이 회원을 들고 있으면 findById 는 DB 를 읽지 않고 그 엔티티를 돌려주므로,
+     * 방금 JDBC 로 쓴 경우에는 refresh 해서 나이/팀/버전을 DB 값으로 맞춘다.
+     * 샤딩이 켜져 있으면 회원의 샤드에서 준영속 회원을 읽는다.
+     */
+    public Optional<Member> findById(Long memberId) {
+        boolean written = false;
+        flushLock.lock();
+        try {
+            PendingChange change = pending.remove(memberId);
+            if (change != null) {
+                Map<Long, PendingChange> single = Map.of(memberId, change);
+                try {
+                    write(single);
+                    written = true;
+                } catch (RuntimeException e) {
+                    requeue(single);
+                    throw e;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+        if (shardedSearch != null) {
+            return shardedSearch.findById(memberId);
+        }
+        Optional<Member> member = memberRepository.findById(memberId);
+        if (written) {
+            member.filter(em::contains).ifPresent(em::refresh);
+        }
+        return member;
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void enqueue(Long memberId, PendingChange change) {
+        pending.merge(memberId, change, PendingChange::merge);
+        if (pending.size() >= flushThreshold) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * 한 번에 하나의 flush 만 실행해서, 같은 회원의 이전 변경이 나중 변경을 덮어쓰지 않게 한다.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (!pending.isEmpty()) {
+                Map<Long, PendingChange> batch = new LinkedHashMap<>();
+                for (Long memberId : pending.keySet()) {
+                    PendingChange change = pending.remove(memberId);
+                    if (change != null) {
+                        batch.put(memberId, change);
+                    }
+                    if (batch.size() >= batchSize) {
+                        break;
+                    }
+                }
+                try {
+                    write(batch);
+                } catch (RuntimeException e) {
+                    if (batch.values().stream().noneMatch(this::lastAttempt)) {
+                        requeue(batch);
+                        throw e;
+                    }
+                    writeEach(batch, e);
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 실패한 변경을 시도 횟수를 올려 되돌려 놓는다. 그 사이 새로 들어온 변경이 있으면 새 값이 우선한다.
+     */
+    private void requeue(Map<Long, PendingChange> batch) {
+        batch.forEach((memberId, change) ->
+                pending.merge(memberId, change.failed(), (newer, failed) -> failed.merge(newer)));
+    }
+
+    private boolean lastAttempt(PendingChange change) {
+        return change.attempts() + 1 >= maxAttempts;
+    }
+
+    /**
+     * 배치 하나가 한 행 때문에 계속 실패하지 않도록, 한 건씩 써서 실패하는 행만 골라낸다.
+     * 마지막 시도였던 행은 버리고 나머지는 되돌려 놓는다. 되돌려 놓은 행이 있으면 이번 flush 는 배치 실패로 끝낸다.
+     */
+    private void writeEach(Map<Long, PendingChange> batch, RuntimeException batchFailure) {
+        boolean requeued = false;
+        for (Map.Entry<Long, PendingChange> entry : batch.entrySet()) {
+            Map<Long, PendingChange> single = Map.of(entry.getKey(), entry.getValue());
+            try {
+                write(single);
+            } catch (RuntimeException e) {
+                if (lastAttempt(entry.getValue())) {
+                    dropped.increment();
+                    log.error("write-behind change dropped after {} attempts, memberId={}, change={}",
+                            maxAttempts, entry.getKey(), entry.getValue(), e);
+                } else {
+                    requeue(single);
+                    requeued = true;
+                }
+            }
+        }
+        if (requeued) {
+            throw batchFailure;
+        }
+    }
+
+    private void write(Map<Long, PendingChange> batch) {
+        if (shardedWriter != null) {
+            shardedWriter.doWork(batch.keySet(), (connection, memberIds) -> update(connection, batch, memberIds));
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                update(connection, batch, batch.keySet());
+                changeOutbox.append(connection, "Member", batch.keySet(), ChangeOperation.UPDATE);
+                return null;
+            });
+            DataVersion.incrementAfterCommit();
+        });
+    }
+
+    private static void update(Connection connection, Map<Long, PendingChange> batch, Collection<Long> memberIds)
+            throws SQLException {
+        List<Object[]> ages = new ArrayList<>();
+        List<Object[]> teams = new ArrayList<>();
+        for (Long memberId : memberIds) {
+            PendingChange change = batch.get(memberId);
+            if (change.age() != null) {
+                ages.add(new Object[]{change.age(), memberId});
+            }
+            if (change.teamChanged()) {
+                teams.add(new Object[]{change.teamId(), change.teamId(), memberId});
+            }
+        }
+        batchUpdate(connection, "update member set age = ?, version = version + 1 where member_id = ?", ages);
+        batchUpdate(connection, "update member set team_id = ?,"
+                + " team_name = (select t.name from team t where t.team_id = ?),"
+                + " version = version + 1 where member_id = ?", teams);
+    }
+
+    private static void batchUpdate(Connection connection, String sql, List<Object[]> rows) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (Object[] row : rows) {
+                for (int i = 0; i < row.length; i++) {
+                    statement.setObject(i + 1, row[i]);
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("write-behind flush failed, pending={}", pending.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        scheduler.shutdown();
+        flushQuietly();
+    }
+
+    /**
+     * @param attempts 반영에 실패한 횟수, 합쳐도 먼저 있던 변경의 횟수를 이어 간다.
+     */
+    record PendingChange(Integer age, boolean teamChanged, Long teamId, int attempts) {
+
+        PendingChange merge(PendingChange newer) {
+            return new PendingChange(
+                    newer.age != null ? newer.age : age,
+                    teamChanged || newer.teamChanged,
+                    newer.teamChanged ? newer.teamId : teamId,
+                    attempts);
+        }
+
+        PendingChange failed() {
+            return new PendingChange(age, teamChanged, teamId, attempts + 1);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.study.service;
+
+import com.study.entity.Team;
+import com.study.repository.MemberRepository;
+import com.study.repository.ShardedMemberWriter;
+import com.study.repository.TeamRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@RequiredArgsConstructor
+public class TeamService {
+
+    private final TeamRepository teamRepository;
+    private final MemberRepository memberRepository;
+    private final ObjectProvider<ShardedMemberWriter> shardedWriter;
+
+    /**
+     * 팀명 변경, 회원에 비정규화된 팀명도 벌크로 함께 바꾼다.
+     * Team.rename() 만 호출하면 member.team_name 은 바뀌지 않으므로 팀명 변경은 여기를 거친다.
+     * 샤딩이 켜져 있으면 모든 샤드의 팀과 회원을 바꾼다. (ShardedMemberWriter.renameTeam)
+     */
+    @Transactional
+    public void rename(Long teamId, String name) {
+        ShardedMemberWriter writer = shardedWriter.getIfAvailable();
+        if (writer != null) {
+            writer.renameTeam(teamId, name);
+            return;
+        }
+        Team team = teamRepository.findById(teamId)
+                .orElseThrow(() -> new IllegalArgumentException("팀이 없습니다. id=" + teamId));
+        team.rename(name);
+        memberRepository.updateTeamName(teamId, name);
+    }
+}
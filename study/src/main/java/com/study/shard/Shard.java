@@ -0,0 +1,142 @@
+package com.study.shard;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import org.springframework.dao.DataAccessException;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 샤드 하나, 자기 DataSource 와 EntityManagerFactory 를 가진다.
+ */
+public class Shard implements AutoCloseable {
+
+    private static final long ID_RANGE_MARGIN = 1000;
+
+    private final int index;
+    private final EntityManagerFactory entityManagerFactory;
+    private final Closeable dataSource;
+
+    public Shard(int index, EntityManagerFactory entityManagerFactory, Closeable dataSource) {
+        this.index = index;
+        this.entityManagerFactory = entityManagerFactory;
+        this.dataSource = dataSource;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * 트랜잭션 없이 조회
+     */
+    public <T> T read(Function<JPAQueryFactory, T> query) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return query.apply(new JPAQueryFactory(em));
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * 트랜잭션 없이 커서로 조회, 반환한 스트림을 닫으면 EntityManager 도 닫힌다.
+     */
+    public <T> Stream<T> stream(Function<JPAQueryFactory, Stream<T>> query) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return query.apply(new JPAQueryFactory(em)).onClose(em::close);
+        } catch (RuntimeException e) {
+            em.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 트랜잭션 없이 EntityManager 로 조회, 반환한 엔티티는 준영속이다.
+     */
+    public <T> T readEntities(Function<EntityManager, T> query) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return query.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * 이 샤드의 로컬 트랜잭션 안에서 저장/변경, 샤드를 넘나드는 트랜잭션은 지원하지 않는다.
+     */
+    public void write(Consumer<EntityManager> work) {
+        inTransaction(em -> {
+            work.accept(em);
+            return null;
+        });
+    }
+
+    /**
+     * write 와 같고 결과를 돌려준다.
+     * JPA 예외는 스프링 DataAccessException 으로 바꿔서, 기본 DataSource 와 같은 예외(락 충돌 등)로 재시도를 판단할 수 있게 한다.
+     */
+    public <T> T inTransaction(Function<EntityManager, T> work) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        try {
+            tx.begin();
+            T result = work.apply(em);
+            tx.commit();
+            return result;
+        } catch (RuntimeException e) {
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            DataAccessException translated = EntityManagerFactoryUtils.convertJpaAccessExceptionIfPossible(e);
+            throw translated != null ? translated : e;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * member_seq 가 이 샤드의 id 범위(ShardRouter.idBase) 아래에 있으면 범위 시작으로 옮긴다. 이미 범위 안이면 그대로 둔다.
+     * 하이버네이트는 시퀀스 값에서 allocationSize 만큼 앞의 id 부터 쓰므로 여유를 두고 옮긴다.
+     */
+    public void reserveIdRange() {
+        long base = ShardRouter.idBase(index);
+        if (base == 0) {
+            return;
+        }
+        write(em -> {
+            long next = ((Number) em.createNativeQuery("select next value for member_seq").getSingleResult()).longValue();
+            if (next < base) {
+                em.createNativeQuery("alter sequence member_seq restart with " + (base + ID_RANGE_MARGIN)).executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        try {
+            entityManagerFactory.close();
+        } finally {
+            try {
+                dataSource.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "shard" + index;
+    }
+}
@@ -0,0 +1,70 @@
+package com.study.shard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 회원 id 로 샤드를 고른다. 회원 id 는 바뀌지 않으므로 팀 이동, 팀명 변경에도 행이 샤드를 옮기지 않는다.
+ * 샤드마다 member_seq 를 (샤드 번호 << ID_SHIFT) 부터 발급하게 맞춰 두므로(Shard.reserveIdRange), id 의 상위 비트가 샤드 번호다.
+ * 새 회원은 회원명 해시로 샤드를 골라 고르게 나눈다. 팀은 작고 자주 바뀌지 않으므로 모든 샤드에 같은 id 로 복제한다. (ShardedMemberWriter)
+ * 팀명 조건 검색은 팀의 회원이 여러 샤드에 있으므로 모든 샤드를 본다.
+ */
+public class ShardRouter implements AutoCloseable {
+
+    /**
+     * 샤드 하나가 쓸 수 있는 회원 id 는 2^48 개
+     */
+    public static final int ID_SHIFT = 48;
+
+    private final List<Shard> shards;
+
+    public ShardRouter(List<Shard> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("샤드가 하나 이상 필요합니다.");
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    public static long idBase(int shardIndex) {
+        return (long) shardIndex << ID_SHIFT;
+    }
+
+    public Shard shardOf(Long memberId) {
+        int index = (int) (memberId >>> ID_SHIFT);
+        if (index >= shards.size()) {
+            throw new IllegalArgumentException("샤드 범위를 벗어난 회원 id 입니다. memberId=" + memberId);
+        }
+        return shards.get(index);
+    }
+
+    /**
+     * 새 회원을 저장할 샤드
+     */
+    public Shard shardForNew(String username) {
+        return shards.get(Math.floorMod(Objects.hashCode(username), shards.size()));
+    }
+
+    /**
+     * 회원 id 를 샤드별로 나눈다. 샤드 안에서는 받은 순서를 유지한다.
+     */
+    public Map<Shard, List<Long>> groupByShard(Collection<Long> memberIds) {
+        Map<Shard, List<Long>> groups = new LinkedHashMap<>();
+        for (Long memberId : memberIds) {
+            groups.computeIfAbsent(shardOf(memberId), shard -> new ArrayList<>()).add(memberId);
+        }
+        return groups;
+    }
+
+    public List<Shard> shards() {
+        return shards;
+    }
+
+    @Override
+    public void close() {
+        shards.forEach(Shard::close);
+    }
+}
@@ -0,0 +1,63 @@
+package com.study.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * member.sharding.enabled=true 면 member.sharding.urls 의 DB 마다 EntityManagerFactory 를 만든다.
+ * 기본 DataSource/EntityManagerFactory 는 그대로 두고, 샤드는 ShardRouter 를 통해서만 사용한다.
+ * spring.jpa.properties 의 하이버네이트 설정은 샤드에도 똑같이 적용한다.
+ * 샤드마다 member_seq 를 자기 id 범위로 옮겨서, 회원 id 만으로 샤드를 알 수 있게 한다. (ShardRouter)
+ */
+@Configuration
+@ConditionalOnProperty(name = "member.sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardRouter shardRouter(EntityManagerFactoryBuilder builder,
+                                   JpaProperties jpaProperties,
+                                   @Value("${member.sharding.urls}") List<String> urls,
+                                   @Value("${member.sharding.username:sa}") String username,
+                                   @Value("${member.sharding.password:}") String password,
+                                   @Value("${member.sharding.ddl-auto:none}") String ddlAuto,
+                                   @Value("${member.sharding.pool-size:5}") int poolSize) {
+        List<Shard> shards = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i))
+                    .username(username)
+                    .password(password)
+                    .build();
+            dataSource.setPoolName("shard" + i);
+            dataSource.setMaximumPoolSize(poolSize);
+
+            Map<String, Object> properties = new HashMap<>(jpaProperties.getProperties());
+            properties.put("hibernate.hbm2ddl.auto", ddlAuto);
+
+            LocalContainerEntityManagerFactoryBean factoryBean = builder
+                    .dataSource(dataSource)
+                    .packages("com.study.entity")
+                    .persistenceUnit("shard" + i)
+                    .properties(properties)
+                    .build();
+            factoryBean.afterPropertiesSet();
+            Shard shard = new Shard(i, factoryBean.getObject(), dataSource);
+            shard.reserveIdRange();
+            shards.add(shard);
+        }
+        return new ShardRouter(shards);
+    }
+}
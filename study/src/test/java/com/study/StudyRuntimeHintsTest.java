@@ -0,0 +1,51 @@
+package com.study;
+
+import com.study.controller.MemberFieldsPage;
+import com.study.dto.ChangeBatch;
+import com.study.dto.MemberDto;
+import com.study.dto.MemberTeamDto;
+import com.study.dto.UserDto;
+import com.study.monitor.QueryCountInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StudyRuntimeHintsTest {
+
+    @Test
+    public void registerHints() throws Exception {
+        RuntimeHints hints = new RuntimeHints();
+        new StudyRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // QMemberDto (@QueryProjection) 생성자 호출
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onConstructor(MemberDto.class.getConstructor(String.class, int.class)).invoke())
+                .accepts(hints);
+        // Projections.bean
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onMethod(UserDto.class.getMethod("setName", String.class)).invoke())
+                .accepts(hints);
+        // Jackson 직렬화
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onMethod(MemberTeamDto.class.getMethod("getTeamName")).invoke())
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(ChangeBatch.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(MemberFieldsPage.class)).accepts(hints);
+        // hibernate.session_factory.statement_inspector
+        assertThat(RuntimeHintsPredicates.reflection()
+                .onConstructor(QueryCountInspector.class.getConstructor()).invoke())
+                .accepts(hints);
+        // SampledJdbcDataSource 프록시
+        for (Class<?> type : new Class<?>[]{Connection.class, Statement.class,
+                PreparedStatement.class, CallableStatement.class}) {
+            assertThat(RuntimeHintsPredicates.proxies().forInterfaces(type)).accepts(hints);
+        }
+    }
+}
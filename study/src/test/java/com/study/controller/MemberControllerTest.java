@@ -0,0 +1,195 @@
+package com.study.controller;
+
+import com.study.entity.DataVersion;
+import com.study.entity.Member;
+import com.study.repository.MemberRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 다른 테스트가 커밋한 데이터와 섞이지 않도록 이 테스트의 회원명으로만 조회하고, 끝나면 지운다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+    static final String USERNAME = "controllerTestMember";
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.deleteAll(memberRepository.findByUsername(USERNAME)));
+    }
+
+    @Test
+    public void missingTenantHeaderReadsDefaultTenantOnly() throws Exception {
+        save(null, 10);
+        save("tenantA", 20);
+
+        mockMvc.perform(get("/v2/members").param("username", USERNAME)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].age").value(contains(10)));
+
+        mockMvc.perform(get("/v2/members").param("username", USERNAME)
+                        .header(MemberController.TENANT_HEADER, "tenantA")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].age").value(contains(20)));
+    }
+
+    @Test
+    public void etagDependsOnTenant() throws Exception {
+        String tenantAEtag = mockMvc.perform(get("/v2/members").param("username", USERNAME)
+                        .header(MemberController.TENANT_HEADER, "tenantA")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString(MemberController.TENANT_HEADER))))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // 다른 테넌트는 같은 데이터 버전이어도 304 를 받지 않는다.
+        mockMvc.perform(get("/v2/members").param("username", USERNAME)
+                        .header(MemberController.TENANT_HEADER, "tenantB")
+                        .header(HttpHeaders.IF_NONE_MATCH, tenantAEtag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(tenantAEtag)));
+    }
+
+    @Test
+    public void notModifiedUntilWriteCommits() throws Exception {
+        save(null, 10);
+        String etag = mockMvc.perform(get("/v2/members").param("username", USERNAME)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("W/\"" + DataVersion.epoch() + "-")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/v2/members").param("username", USERNAME)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified());
+
+        save(null, 20);
+
+        mockMvc.perform(get("/v2/members").param("username", USERNAME)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)))
+                .andExpect(jsonPath("$.content[*].age").value(containsInAnyOrder(10, 20)));
+    }
+
+    /**
+     * 같은 데이터라도 형식마다 응답 바이트가 다르므로 다른 형식의 ETag 로 304 를 받으면 안 된다.
+     */
+    @Test
+    public void etagDependsOnMediaType() throws Exception {
+        save(null, 10);
+        String jsonEtag = mockMvc.perform(get("/v2/members").param("username", USERNAME)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/v2/members").param("username", USERNAME)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonEtag)
+                        .accept(MemberPageColumnarConverter.MEMBER_COLUMNAR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MemberPageColumnarConverter.MEMBER_COLUMNAR))
+                .andExpect(header().string(HttpHeaders.ETAG, not(jsonEtag)));
+
+        // Accept 가 없으면 JSON 으로 응답하므로 같은 ETag
+        mockMvc.perform(get("/v2/members").param("username", USERNAME)
+                        .header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void rejectMalformedTenantHeader() throws Exception {
+        mockMvc.perform(get("/v2/members").param("username", USERNAME)
+                        .header(MemberController.TENANT_HEADER, "tenant\"A")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Accept 가 없거나 *&#47;* 이면 JSON, 컬럼 포맷은 명시적으로 요청할 때만
+     */
+    @Test
+    public void negotiateColumnarOnlyWhenRequested() throws Exception {
+        save(null, 10);
+
+        mockMvc.perform(get("/v2/members").param("username", USERNAME))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.content[*].age").value(contains(10)));
+
+        mockMvc.perform(get("/v2/members").param("username", USERNAME)
+                        .accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+
+        mockMvc.perform(get("/v2/members").param("username", USERNAME).param("fields", "username")
+                        .accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.content[0].username").value(USERNAME));
+
+        mockMvc.perform(get("/v2/members").param("username", USERNAME)
+                        .accept(MemberPageColumnarConverter.MEMBER_COLUMNAR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MemberPageColumnarConverter.MEMBER_COLUMNAR));
+    }
+
+    /**
+     * fields= 응답은 컬럼 포맷으로 쓸 수 없으므로 500 이 아니라 406
+     */
+    @Test
+    public void rejectColumnarForFields() throws Exception {
+        save(null, 10);
+
+        mockMvc.perform(get("/v2/members").param("username", USERNAME).param("fields", "username")
+                        .accept(MemberPageColumnarConverter.MEMBER_COLUMNAR))
+                .andExpect(status().isNotAcceptable());
+
+        mockMvc.perform(get("/v3/members").param("username", USERNAME).param("fields", "username")
+                        .accept(MemberPageColumnarConverter.MEMBER_COLUMNAR, MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    Member save(String tenantId, int age) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Member member = new Member(USERNAME, age);
+            member.setTenantId(tenantId);
+            return memberRepository.save(member);
+        });
+    }
+}
@@ -0,0 +1,84 @@
+package com.study.controller;
+
+import com.study.dto.MemberTeamDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberPageColumnarConverterTest {
+
+    @Test
+    public void writeColumnar() throws Exception {
+        List<MemberTeamDto> content = List.of(
+                new MemberTeamDto(1L, "member1", 10, 100L, "teamA"),
+                new MemberTeamDto(2L, "member2", 20, 100L, "teamA"),
+                new MemberTeamDto(3L, null, 30, null, null));
+        PageImpl<MemberTeamDto> page = new PageImpl<>(content, PageRequest.of(1, 3), 10);
+
+        MemberPageColumnarConverter converter = new MemberPageColumnarConverter();
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(page, MemberPageColumnarConverter.MEMBER_COLUMNAR, output);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(output.getBodyAsBytes()));
+        assertThat(in.readInt()).isEqualTo(MemberPageColumnarConverter.FORMAT_VERSION);
+        assertThat(in.readInt()).isEqualTo(1);
+        assertThat(in.readInt()).isEqualTo(3);
+        assertThat(in.readLong()).isEqualTo(10L);
+        assertThat(in.readInt()).isEqualTo(3);
+
+        // 팀명 사전은 한 번만
+        assertThat(in.readInt()).isEqualTo(1);
+        assertThat(readString(in)).isEqualTo("teamA");
+
+        assertThat(new long[]{in.readLong(), in.readLong(), in.readLong()}).containsExactly(1L, 2L, 3L);
+        assertThat(in.readBoolean()).isTrue();
+        assertThat(readString(in)).isEqualTo("member1");
+        assertThat(in.readBoolean()).isTrue();
+        assertThat(readString(in)).isEqualTo("member2");
+        assertThat(in.readBoolean()).isFalse();
+        assertThat(new int[]{in.readInt(), in.readInt(), in.readInt()}).containsExactly(10, 20, 30);
+        assertThat(new int[]{in.readInt(), in.readInt(), in.readInt()})
+                .containsExactly(0, 0, MemberPageColumnarConverter.NO_TEAM);
+        assertThat(new long[]{in.readLong(), in.readLong()}).containsExactly(100L, 100L);
+        assertThat(in.available()).isZero();
+    }
+
+    /**
+     * writeUTF 는 65535 바이트를 넘으면 실패하므로 길이 + UTF-8 바이트로 쓴다.
+     */
+    @Test
+    public void writeLongString() throws Exception {
+        String username = "회".repeat(30_000);
+        PageImpl<MemberTeamDto> page = new PageImpl<>(
+                List.of(new MemberTeamDto(1L, username, 10, null, null)), PageRequest.of(0, 1), 1);
+
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        new MemberPageColumnarConverter().write(page, MemberPageColumnarConverter.MEMBER_COLUMNAR, output);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(output.getBodyAsBytes()));
+        assertThat(in.readInt()).isEqualTo(MemberPageColumnarConverter.FORMAT_VERSION);
+        in.readInt();
+        in.readInt();
+        in.readLong();
+        assertThat(in.readInt()).isEqualTo(1);
+        assertThat(in.readInt()).as("팀명 사전").isZero();
+        assertThat(in.readLong()).isEqualTo(1L);
+        assertThat(in.readBoolean()).isTrue();
+        assertThat(readString(in)).isEqualTo(username);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
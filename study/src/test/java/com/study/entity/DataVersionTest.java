@@ -0,0 +1,47 @@
+package com.study.entity;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataVersionTest {
+
+    DataSourceTransactionManager transactionManager =
+            new DataSourceTransactionManager(new DriverManagerDataSource("jdbc:h2:mem:dataVersion"));
+
+    @Test
+    public void incrementOncePerCommit() {
+        long before = DataVersion.current();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            DataVersion.incrementAfterCommit();
+            DataVersion.incrementAfterCommit();
+            assertThat(DataVersion.current()).isEqualTo(before);
+        });
+
+        assertThat(DataVersion.current()).isEqualTo(before + 1);
+    }
+
+    /**
+     * 바깥 트랜잭션이 먼저 등록했어도 REQUIRES_NEW 는 자기 커밋에 올리고, 바깥이 롤백되면 바깥 몫은 올리지 않는다.
+     */
+    @Test
+    public void requiresNewIncrementsOnItsOwnCommit() {
+        long before = DataVersion.current();
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(outer -> {
+            DataVersion.incrementAfterCommit();
+            requiresNew.executeWithoutResult(inner -> DataVersion.incrementAfterCommit());
+            assertThat(DataVersion.current()).isEqualTo(before + 1);
+            outer.setRollbackOnly();
+        });
+
+        assertThat(DataVersion.current()).isEqualTo(before + 1);
+    }
+}
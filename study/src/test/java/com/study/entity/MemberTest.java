@@ -2,17 +2,28 @@ package com.study.entity;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestTemplate;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Commit;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * testEntity 는 커밋하므로, 다음 테스트 클래스가 새 컨텍스트(ddl-auto: create)로 빈 스키마에서 시작하게 한다.
+ */
 @SpringBootTest
 @Transactional
 @Commit
+@DirtiesContext
 class MemberTest {
 
     @PersistenceContext
@@ -48,4 +59,35 @@ class MemberTest {
             System.out.println("member.getUsername() = " + member.getUsername());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * build.gradle 의 하이버네이트 바이트코드 향상
+     */
+    @Test
+    @Rollback
+    public void bytecodeEnhancement() {
+        Team team = new Team("teamA");
+        em.persist(team);
+        Member member = new Member("member1", 10, team);
+        em.persist(member);
+        em.flush();
+        em.clear();
+
+        // @Basic(fetch = LAZY) 는 읽을 때 조회
+        Team findTeam = em.find(Team.class, team.getId());
+        assertThat(Hibernate.isPropertyInitialized(findTeam, "memberCount")).isFalse();
+        assertThat(findTeam.getMemberCount()).isEqualTo(1);
+
+        // dirty tracking, -PhibernateDirtyTracking=false 로 빌드하면 건너뛴다.
+        Member findMember = em.find(Member.class, member.getId());
+        assumeTrue(findMember instanceof SelfDirtinessTracker);
+        SelfDirtinessTracker tracker = (SelfDirtinessTracker) findMember;
+        assertThat(tracker.$$_hibernate_hasDirtyAttributes()).isFalse();
+        findMember.setAge(11);
+        assertThat(tracker.$$_hibernate_getDirtyAttributes()).containsExactly("age");
+
+        em.flush();
+        em.clear();
+        assertThat(em.find(Member.class, member.getId()).getAge()).isEqualTo(11);
+    }
+}
@@ -0,0 +1,85 @@
+package com.study.monitor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 시계를 직접 움직여서 빠른 DB / 느린 DB 를 흉내 낸다.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    AtomicLong clock = new AtomicLong();
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(registry, true, 10, 2, 100, 0.5, clock::get);
+
+    @Test
+    public void growWhenFastAndShrinkWhenSlow() {
+        for (int i = 0; i < 50; i++) {
+            run(8, 1);
+        }
+        int grown = limiter.getLimit();
+        assertThat(grown).isGreaterThan(10);
+
+        for (int i = 0; i < 50; i++) {
+            run(Math.max(1, limiter.getLimit() / 2), 50);
+        }
+        assertThat(limiter.getLimit()).isLessThan(grown / 2);
+    }
+
+    @Test
+    public void degradeThenRejectOverLimit() {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(true);
+            assertThat(permit.isDegraded()).isFalse();
+            permits.add(permit);
+        }
+
+        assertThat(limiter.acquire(false)).as("degraded 응답이 없는 요청은 바로 거절").isNull();
+        for (int i = 0; i < 5; i++) {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(true);
+            assertThat(permit.isDegraded()).isTrue();
+            permits.add(permit);
+        }
+        assertThat(limiter.acquire(true)).isNull();
+
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::release);
+        assertThat(limiter.getInFlight()).isZero();
+        assertThat(registry.counter("member.search.shed", "outcome", "degraded").count()).isEqualTo(5);
+        assertThat(registry.counter("member.search.shed", "outcome", "rejected").count()).isEqualTo(2);
+    }
+
+    @Test
+    public void shrinkOnDropsWithoutLatencySamples() {
+        for (int i = 0; i < 30; i++) {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(false);
+            permit.dropped();
+            permit.release();
+        }
+
+        assertThat(limiter.getLimit()).as("0.9 배씩 줄되 min-limit 아래로는 내려가지 않는다").isEqualTo(2);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    /**
+     * concurrent 개를 동시에 시작해서 rttMillis 뒤에 모두 끝낸다.
+     */
+    private void run(int concurrent, long rttMillis) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < concurrent; i++) {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire(false);
+            if (permit != null) {
+                permits.add(permit);
+            }
+        }
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(rttMillis));
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::success);
+    }
+}
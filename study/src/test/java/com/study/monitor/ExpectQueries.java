@@ -0,0 +1,28 @@
+package com.study.monitor;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 테스트 메서드 본문에서 실행되는 SQL 수와 읽는 행 수를 검증한다.
+ * 본문 실행 직전에 영속성 컨텍스트를 flush 하므로 @BeforeEach 의 데이터 저장은 세지 않는다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface ExpectQueries {
+
+    /**
+     * 정확히 실행되어야 하는 SQL 수
+     */
+    int statements();
+
+    /**
+     * 읽을 수 있는 최대 행 수, 음수면 검사하지 않는다.
+     */
+    long maxRows() default -1;
+}
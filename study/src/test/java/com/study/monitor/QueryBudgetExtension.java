@@ -0,0 +1,40 @@
+package com.study.monitor;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(QueryBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            SpringExtension.getApplicationContext(context).getBean(EntityManager.class).flush();
+        }
+        context.getStore(NAMESPACE).put(QueryScope.class, QueryScope.open(context.getDisplayName()));
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        QueryScope scope = context.getStore(NAMESPACE).remove(QueryScope.class, QueryScope.class);
+        scope.close();
+
+        ExpectQueries expected = context.getRequiredTestMethod().getAnnotation(ExpectQueries.class);
+        assertThat(scope.getStatements())
+                .as("실행된 SQL 수")
+                .isEqualTo(expected.statements());
+        if (expected.maxRows() >= 0) {
+            assertThat(scope.getRows())
+                    .as("읽은 행 수")
+                    .isLessThanOrEqualTo(expected.maxRows());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.study.monitor;
+
+import com.study.dto.MemberSearchCondition;
+import com.study.repository.MemberRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 운영처럼 통계를 꺼 두고, 표본 구간을 직접 열고 닫는다. 주기 표본은 테스트 중에 돌지 않게 길게 둔다.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=false",
+        "member.query-cache.sample-interval=1h"})
+class QueryCacheEndpointTest {
+
+    @Autowired
+    QueryCacheEndpoint endpoint;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    public void reportLastSampleWindow() {
+        assertThat(endpoint.report().source()).isEqualTo("none");
+        assertThat(endpoint.report().planCache()).isNull();
+
+        endpoint.openSample();
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(1);
+        memberRepository.search(condition);
+        memberRepository.search(condition);
+        endpoint.closeSample();
+
+        QueryCacheEndpoint.QueryCacheReport report = endpoint.report();
+        assertThat(report.source()).isEqualTo("sample");
+        assertThat(report.planCache().hits() + report.planCache().misses()).isGreaterThanOrEqualTo(2);
+        assertThat(report.planCache().preparedStatements()).isGreaterThanOrEqualTo(2);
+        assertThat(entityManagerFactory.unwrap(SessionFactory.class).getStatistics().isStatisticsEnabled())
+                .as("표본 구간이 끝나면 다시 끈다").isFalse();
+    }
+
+    @Test
+    public void reportEffectiveStatementCacheSize() {
+        QueryCacheEndpoint.QueryCacheReport report = endpoint.report();
+
+        assertThat(report.statementCacheSize()).isEqualTo(8);
+        assertThat(report.effectiveStatementCacheSize()).isNotNull();
+    }
+}
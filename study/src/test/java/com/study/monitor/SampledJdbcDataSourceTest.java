@@ -0,0 +1,35 @@
+package com.study.monitor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SampledJdbcDataSourceTest {
+
+    @Test
+    public void recordNullForSetNull() throws Exception {
+        DriverManagerDataSource h2 = new DriverManagerDataSource("jdbc:h2:mem:sampled");
+        // 모든 SQL 을 표본으로, 모든 SQL 을 느린 SQL 로 남긴다.
+        SlowStatementLog slowStatementLog = new SlowStatementLog(Duration.ZERO, 8);
+        SampledJdbcDataSource dataSource = new SampledJdbcDataSource(h2,
+                new SampledJdbcRecorder(1.0, slowStatementLog, new SimpleMeterRegistry()));
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select ?, ?")) {
+            statement.setString(1, "member1");
+            statement.setNull(2, Types.INTEGER);
+            statement.executeQuery().close();
+        }
+
+        assertThat(slowStatementLog.recent()).first()
+                .extracting(SlowStatementLog.SlowStatement::parameters)
+                .isEqualTo("{1=member1, 2=null}");
+    }
+}
@@ -13,12 +13,15 @@ import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import com.study.dto.MemberDto;
+import com.study.dto.MemberTeamDtoProjection;
 import com.study.dto.QMemberDto;
 import com.study.dto.UserDto;
+import com.study.dto.UserDtoProjection;
 import com.study.entity.Member;
 import com.study.entity.QMember;
 import com.study.entity.QTeam;
 import com.study.entity.Team;
+import com.study.monitor.ExpectQueries;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceContext;
@@ -38,6 +41,7 @@ import static com.querydsl.jpa.JPAExpressions.*;
 import static com.study.entity.QMember.member;
 import static com.study.entity.QTeam.team;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @SpringBootTest
 @Transactional
@@ -351,6 +355,38 @@ public class QuerydslBasicTest {
         assertThat(loaded).as("패치 조인 미적용").isFalse();
     }
 
+    /**
+     * 페치 조인 없이 팀에 접근하면 팀 수만큼 조회 쿼리가 추가된다. (N+1)
+     */
+    @Test
+    @ExpectQueries(statements = 3, maxRows = 6)
+    public void fetchJoinNoQueryCount() throws Exception {
+        em.clear();
+
+        List<Member> result = jpaQueryFactory
+                .selectFrom(member)
+                .fetch();
+
+        for (Member findMember : result) {
+            findMember.getTeam().getName();
+        }
+    }
+
+    @Test
+    @ExpectQueries(statements = 1, maxRows = 4)
+    public void fetchJoinUseQueryCount() throws Exception {
+        em.clear();
+
+        List<Member> result = jpaQueryFactory
+                .selectFrom(member)
+                .join(member.team, team).fetchJoin()
+                .fetch();
+
+        for (Member findMember : result) {
+            findMember.getTeam().getName();
+        }
+    }
+
     /**
      * 서브 쿼리는 com.querydsl.jpa.JPAExpressions 사용
      * 나이가 가장 많은 회원 조회
@@ -699,6 +735,43 @@ public class QuerydslBasicTest {
         }
     }
 
+    /**
+     * 프로젝션과 결과 반환 - @GenerateProjection
+     * 컴파일 시점에 XxxProjection 을 생성한다. 리플렉션 없이 setter/생성자를 직접 호출하고, DTO 는 Querydsl 에 의존하지 않는다.
+     * 인자 순서로 대입하므로 이름이 달라도 별칭이 필요 없다.
+     */
+    @Test
+    @DisplayName("프로젝션과 결과 반환 -> @GenerateProjection")
+    public void projectionByGeneratedFactory() {
+        QMember memberSub = new QMember("memberSub");
+
+        List<UserDto> fetch = jpaQueryFactory
+                .select(new UserDtoProjection(
+                        member.username,
+                        select(memberSub.age.max())
+                                .from(memberSub)))
+                .from(member)
+                .fetch();
+
+        assertThat(fetch).hasSize(4);
+        assertThat(fetch).extracting("name").containsExactlyInAnyOrder("member1", "member2", "member3", "member4");
+        assertThat(fetch).extracting("age").containsOnly(40);
+    }
+
+    /**
+     * 생성자 팩토리는 기본형 파라미터(MemberTeamDto.age)에 null 이 오면 파라미터 이름을 담아 실패한다.
+     */
+    @Test
+    public void generatedFactoryRejectsNullPrimitive() {
+        MemberTeamDtoProjection projection =
+                new MemberTeamDtoProjection(member.id, member.username, member.age, team.id, team.name);
+
+        assertThatThrownBy(() -> projection.newInstance(1L, "member1", null, null, null))
+                .isInstanceOf(NullPointerException.class)
+                .hasMessageContaining("MemberTeamDto")
+                .hasMessageContaining("age");
+    }
+
     /**
      * distinct
      * 참고: distinct는 JPQL의 distinct와 같다.
@@ -0,0 +1,109 @@
+package com.study.repository;
+
+import com.study.dto.MemberSearchCondition;
+import com.study.dto.MemberTeamDto;
+import com.study.entity.Member;
+import com.study.entity.Team;
+import com.study.monitor.QueryScope;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 파티션마다 별도 EntityManager 로 읽으므로 데이터를 커밋해 두고, 이 테스트의 회원명 접두어로만 조회한다.
+ */
+@SpringBootTest
+class MemberPartitionScannerTest {
+
+    static final String PREFIX = "scanMember";
+
+    @Autowired
+    MemberPartitionScanner scanner;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    public void after() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("select m from Member m where m.username like :prefix", Member.class)
+                    .setParameter("prefix", PREFIX + "%")
+                    .getResultList()
+                    .forEach(em::remove);
+            em.createQuery("select t from Team t where t.name like :prefix", Team.class)
+                    .setParameter("prefix", PREFIX + "%")
+                    .getResultList()
+                    .forEach(em::remove);
+        });
+    }
+
+    @Test
+    public void partitionedScanMatchesSingleQuery() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Team teamA = new Team(PREFIX + "TeamA");
+            Team teamB = new Team(PREFIX + "TeamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 20; i++) {
+                em.persist(new Member(PREFIX + i, i, i % 3 == 0 ? null : i % 2 == 0 ? teamA : teamB));
+            }
+        });
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix(PREFIX);
+
+        List<MemberTeamDto> single = memberRepository.search(condition);
+        assertThat(single).hasSize(20);
+
+        for (int partitions : new int[]{1, 3, 7, 50}) {
+            List<MemberTeamDto> scanned = scanner.scan(condition, partitions, Collectors.toList());
+            assertThat(scanned).as("partitions=%d", partitions).containsExactlyInAnyOrderElementsOf(single);
+
+            Map<String, Long> countByTeam = scanner.scan(condition, partitions,
+                    Collectors.groupingBy(dto -> String.valueOf(dto.getTeamName()), Collectors.counting()));
+            assertThat(countByTeam).isEqualTo(single.stream()
+                    .collect(Collectors.groupingBy(dto -> String.valueOf(dto.getTeamName()), Collectors.counting())));
+        }
+    }
+
+    /**
+     * 파티션은 작업 스레드에서 읽지만 호출한 스레드의 QueryScope 에 집계된다. (범위 조회 1 + 파티션 1)
+     */
+    @Test
+    public void countPartitionQueriesInCallerScope() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 5; i++) {
+                em.persist(new Member(PREFIX + i, i, null));
+            }
+        });
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernamePrefix(PREFIX);
+
+        try (QueryScope scope = QueryScope.open("scan")) {
+            List<MemberTeamDto> scanned = scanner.scan(condition, 1, Collectors.toList());
+
+            assertThat(scanned).hasSize(5);
+            assertThat(scope.getStatements()).isEqualTo(2);
+            assertThat(scope.getRows()).isGreaterThanOrEqualTo(5);
+        }
+    }
+
+    @Test
+    public void rejectNonPositivePartitions() {
+        assertThatThrownBy(() -> scanner.scan(new MemberSearchCondition(), 0, Collectors.toList()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
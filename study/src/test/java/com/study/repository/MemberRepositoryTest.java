@@ -1,18 +1,28 @@
 package com.study.repository;
 
+import com.study.dto.MemberField;
 import com.study.dto.MemberSearchCondition;
 import com.study.dto.MemberTeamDto;
 import com.study.entity.Member;
 import com.study.entity.Team;
+import com.study.monitor.QueryScope;
 import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @SpringBootTest
 @Transactional
@@ -22,6 +32,10 @@ class MemberRepositoryTest {
     EntityManager em;
     @Autowired
     MemberRepository memberRepository;
+    @Autowired
+    FetchSizePolicy fetchSizePolicy;
+    @Autowired
+    ChangeOutbox changeOutbox;
 
     /**
      * Querydsl 전용 기능인 회원 search를 작성할 수 없다. 사용자 정의 리포지토리 필요
@@ -41,6 +55,28 @@ class MemberRepositoryTest {
         assertThat(result2).containsExactly(member);
     }
 
+    @Test
+    public void findDetachedByUsernameTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+        // StatelessSession 은 flush 하지 않는다.
+        em.flush();
+
+        List<Member> result = memberRepository.findDetachedByUsername("member1");
+
+        assertThat(result).hasSize(1);
+        Member detached = result.get(0);
+        assertThat(detached.getId()).isEqualTo(member1.getId());
+        assertThat(detached.getAge()).isEqualTo(10);
+        assertThat(detached).isNotSameAs(member1);
+        assertThat(em.contains(detached)).isFalse();
+        assertThat(Hibernate.isInitialized(detached.getTeam())).isTrue();
+        assertThat(detached.getTeam().getName()).isEqualTo("teamA");
+    }
+
     /**
      * 사용자 정의 리포지토리
      * 사용자 정의 리포지토리 사용법
@@ -75,4 +111,323 @@ class MemberRepositoryTest {
         List<MemberTeamDto> result = memberRepository.search(condition);
         assertThat(result).extracting("username").containsExactly("member4");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void searchUsernameContainsAndPrefixTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("alice", 10, teamA));
+        em.persist(new Member("malice", 20, teamA));
+        em.persist(new Member("bob", 30, teamA));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition contains = new MemberSearchCondition();
+        contains.setUsernameContains("lic");
+        assertThat(memberRepository.search(contains))
+                .extracting("username")
+                .containsExactlyInAnyOrder("alice", "malice");
+
+        MemberSearchCondition shortKeyword = new MemberSearchCondition();
+        shortKeyword.setUsernameContains("o");
+        assertThat(memberRepository.search(shortKeyword))
+                .extracting("username")
+                .containsExactly("bob");
+
+        MemberSearchCondition prefix = new MemberSearchCondition();
+        prefix.setUsernamePrefix("al");
+        assertThat(memberRepository.search(prefix))
+                .extracting("username")
+                .containsExactly("alice");
+    }
+
+    @Test
+    public void searchTenantTest() {
+        Member memberA = new Member("member1", 10);
+        memberA.setTenantId("tenantA");
+        Member memberB = new Member("member1", 20);
+        memberB.setTenantId("tenantB");
+        em.persist(memberA);
+        em.persist(memberB);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTenantId("tenantA");
+        condition.setUsername("member1");
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+
+        assertThat(result).extracting("age").containsExactly(10);
+    }
+
+    @Test
+    public void searchBatchTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+
+        MemberSearchCondition byName1 = new MemberSearchCondition();
+        byName1.setUsername("member1");
+        MemberSearchCondition byName3 = new MemberSearchCondition();
+        byName3.setUsername("member3");
+        MemberSearchCondition unknown = new MemberSearchCondition();
+        unknown.setUsername("member9");
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("teamA");
+
+        List<List<MemberTeamDto>> result =
+                memberRepository.searchBatch(List.of(byName1, byTeam, byName3, unknown));
+
+        assertThat(result).hasSize(4);
+        assertThat(result.get(0)).extracting("username").containsExactly("member1");
+        assertThat(result.get(1)).extracting("username").containsExactlyInAnyOrder("member1", "member2");
+        assertThat(result.get(2)).extracting("username").containsExactly("member3");
+        assertThat(result.get(3)).isEmpty();
+    }
+
+    /**
+     * username 만 다른 조건끼리만 합쳐진다. username 없는 조건과 나머지 조건이 다른 조건은 따로 조회한다.
+     */
+    @Test
+    public void searchBatchMergesOnlyUsernameConditionsTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, null));
+        em.flush();
+        em.clear();
+
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        for (String username : List.of("member1", "member2", "member3")) {
+            MemberSearchCondition byName = new MemberSearchCondition();
+            byName.setUsername(username);
+            conditions.add(byName);
+        }
+        MemberSearchCondition byNameAndTeam = new MemberSearchCondition();
+        byNameAndTeam.setUsername("member3");
+        byNameAndTeam.setTeamName("teamA");
+        conditions.add(byNameAndTeam);
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(20);
+        conditions.add(byAge);
+
+        try (QueryScope scope = QueryScope.open("searchBatch")) {
+            List<List<MemberTeamDto>> result = memberRepository.searchBatch(conditions);
+
+            assertThat(result.get(0)).extracting("username").containsExactly("member1");
+            assertThat(result.get(2)).extracting("username").containsExactly("member3");
+            assertThat(result.get(3)).isEmpty();
+            assertThat(result.get(4)).extracting("username").containsExactlyInAnyOrder("member2", "member3");
+            assertThat(scope.getStatements()).as("username 만 있는 3건 1 + username+teamName 1 + ageGoe 1").isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void searchPageComplexSkipCountQueryTest() {
+        Team team = new Team("teamQ");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.persist(new Member("member2", 20, team));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamQ");
+
+        try (QueryScope scope = QueryScope.open("searchPageComplex")) {
+            Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+
+            assertThat(result.getContent()).hasSize(2);
+            assertThat(scope.getStatements()).as("첫 페이지가 다 차지 않으면 count 쿼리 생략").isEqualTo(1);
+            assertThat(scope.getRows()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void searchPageFieldsTest() {
+        Team team = new Team("teamF");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.persist(new Member("member2", 20, team));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<Map<String, Object>> result = memberRepository.searchPageFields(condition,
+                MemberField.parse(List.of("username", "teamId")), PageRequest.of(0, 10));
+
+        assertThat(result.getContent()).hasSize(1);
+        Map<String, Object> row = result.getContent().get(0);
+        assertThat(row).containsOnlyKeys("username", "teamId");
+        assertThat(row).containsEntry("username", "member2").containsEntry("teamId", team.getId());
+    }
+
+    /**
+     * 과부하 응답(CountMode.NONE): 한 건 더 읽어 다음 페이지 유무만 판단하고 count 쿼리는 없다.
+     */
+    @Test
+    public void searchPageFieldsWithoutCountTest() {
+        Team team = new Team("teamN");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.persist(new Member("member2", 20, team));
+        em.persist(new Member("member3", 30, team));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamN");
+        Set<MemberField> fields = MemberField.parse(List.of("username"));
+
+        Page<Map<String, Object>> first = memberRepository.searchPageFields(condition, fields,
+                PageRequest.of(0, 2), CountMode.NONE);
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first.getTotalElements()).isEqualTo(3);
+        assertThat(first.hasNext()).isTrue();
+
+        Page<Map<String, Object>> last = memberRepository.searchPageFields(condition, fields,
+                PageRequest.of(1, 2), CountMode.NONE);
+        assertThat(last.getContent()).hasSize(1);
+        assertThat(last.getTotalElements()).isEqualTo(3);
+        assertThat(last.hasNext()).isFalse();
+    }
+
+    @Test
+    public void streamSearchTest() {
+        Team team = new Team("teamS");
+        em.persist(team);
+        em.persist(new Member("member1", 10, team));
+        em.persist(new Member("member2", 20, team));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamS");
+
+        try (Stream<MemberTeamDto> result = memberRepository.streamSearch(condition)) {
+            assertThat(result.map(MemberTeamDto::getUsername))
+                    .containsExactlyInAnyOrder("member1", "member2");
+        }
+    }
+
+    @Test
+    public void incrementAgeTest() {
+        Member member1 = new Member("member1", 10);
+        Member member2 = new Member("member2", 20);
+        Member member3 = new Member("member3", 30);
+        memberRepository.save(member1);
+        memberRepository.save(member2);
+        memberRepository.save(member3);
+
+        long count = memberRepository.incrementAge(List.of(member1.getId(), member2.getId()), 1);
+
+        assertThat(count).isEqualTo(2);
+        Member findMember1 = memberRepository.findById(member1.getId()).get();
+        assertThat(findMember1.getAge()).isEqualTo(11);
+        assertThat(findMember1.getVersion()).isEqualTo(1L);
+        assertThat(memberRepository.findById(member3.getId()).get().getAge()).isEqualTo(30);
+    }
+
+    @Test
+    public void changeTeamWithoutLoadingMembersTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamB));
+        em.flush();
+        em.clear();
+
+        Member findMember = em.find(Member.class, member1.getId());
+        Team findTeamB = em.find(Team.class, teamB.getId());
+        Team oldTeam = findMember.getTeam();
+        findMember.changeTeam(findTeamB);
+
+        assertThat(Hibernate.isInitialized(oldTeam)).as("이전 팀 프록시는 로딩하지 않는다").isFalse();
+        assertThat(Hibernate.isInitialized(findMember.getTeam().getMembers())).isFalse();
+        assertThat(findTeamB.getMemberCount()).isEqualTo(1);
+
+        em.flush();
+        em.clear();
+
+        Team reloadedTeamB = em.find(Team.class, teamB.getId());
+        assertThat(reloadedTeamB.getMemberCount()).isEqualTo(2);
+        assertThat(reloadedTeamB.getVersion()).as("회원 이동은 팀 버전을 올리지 않는다").isEqualTo(teamB.getVersion());
+        assertThat(Hibernate.isInitialized(reloadedTeamB.getMembers())).isFalse();
+    }
+
+    @Test
+    public void moveMembersTest() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        em.persist(member1);
+        em.persist(member2);
+
+        long count = memberRepository.moveMembers(teamB.getId(), List.of(member1.getId(), member2.getId()));
+
+        assertThat(count).isEqualTo(2);
+        assertThat(em.find(Team.class, teamA.getId()).getMemberCount()).isZero();
+        assertThat(em.find(Team.class, teamB.getId()).getMemberCount()).isEqualTo(2);
+        assertThat(em.find(Member.class, member1.getId()).getTeam().getName()).isEqualTo("teamB");
+    }
+
+    @Test
+    public void renameTeamUpdatesDenormalizedTeamNameTest() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        assertThat(member1.getTeamName()).isEqualTo("teamA");
+
+        teamA.rename("teamZ");
+        memberRepository.updateTeamName(teamA.getId(), "teamZ");
+
+        Member findMember = em.find(Member.class, member1.getId());
+        assertThat(findMember.getTeamName()).isEqualTo("teamZ");
+        assertThat(findMember.getVersion()).as("다른 트랜잭션이 들고 있던 회원은 낙관적 락에 걸린다").isEqualTo(1L);
+    }
+
+    /**
+     * member.search.denormalized-team-name=true: 팀 조인 없이 member.team_name 으로 검색하고, 팀명 변경 후에도 같은 결과
+     */
+    @Test
+    public void searchDenormalizedTeamNameTest() {
+        Team teamA = new Team("teamDA");
+        Team teamB = new Team("teamDB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamB));
+        em.flush();
+        em.clear();
+
+        MemberRepositoryCustomImpl denormalized = new MemberRepositoryCustomImpl(em, fetchSizePolicy, changeOutbox, true);
+
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("teamDA");
+        assertThat(denormalized.search(byTeam))
+                .extracting("username", "teamId", "teamName")
+                .containsExactly(tuple("member1", teamA.getId(), "teamDA"));
+
+        memberRepository.updateTeamName(teamA.getId(), "teamDZ");
+        em.find(Team.class, teamA.getId()).rename("teamDZ");
+        em.flush();
+
+        byTeam.setTeamName("teamDZ");
+        assertThat(denormalized.search(byTeam)).extracting("username").containsExactly("member1");
+        byTeam.setTeamName("teamDA");
+        assertThat(denormalized.searchPageComplex(byTeam, PageRequest.of(0, 10)).getContent()).isEmpty();
+    }
+}
@@ -0,0 +1,190 @@
+package com.study.repository;
+
+import com.study.dto.MemberSearchCondition;
+import com.study.dto.MemberTeamDto;
+import com.study.entity.DataVersion;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class MemberSearchCoalescerTest {
+
+    @Test
+    public void coalesceConcurrentSameSearch() throws Exception {
+        MemberRepository memberRepository = mock(MemberRepository.class);
+        CountDownLatch release = new CountDownLatch(1);
+        Page<MemberTeamDto> page = new PageImpl<>(List.of());
+        when(memberRepository.searchPageComplex(any(), any())).thenAnswer(invocation -> {
+            release.await();
+            return page;
+        });
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MemberSearchCoalescer coalescer =
+                new MemberSearchCoalescer(memberRepository,
+                        new TenantSearchLimiter(registry, 4, Duration.ofMillis(100), 64, 1000),
+                        registry, true, Duration.ofSeconds(1));
+
+        int callers = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        List<Future<Page<MemberTeamDto>>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            condition.setTeamName("teamA");
+            results.add(executor.submit(() ->
+                    coalescer.searchPageComplex(condition, PageRequest.of(0, 20))));
+        }
+
+        while (registry.counter("member.search.coalescing.requests").count() < callers) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        for (Future<Page<MemberTeamDto>> result : results) {
+            assertThat(result.get()).isSameAs(page);
+        }
+        executor.shutdown();
+
+        verify(memberRepository, times(1)).searchPageComplex(any(), any());
+        assertThat(coalescer.dedupRatio()).isEqualTo(0.8);
+    }
+
+    @Test
+    public void limitConcurrentSearchesPerTenant() throws Exception {
+        MemberRepository memberRepository = mock(MemberRepository.class);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Page<MemberTeamDto> page = new PageImpl<>(List.of());
+        when(memberRepository.searchPageComplex(any(), any())).thenAnswer(invocation -> {
+            MemberSearchCondition condition = invocation.getArgument(0);
+            if ("heavy".equals(condition.getTenantId())) {
+                started.countDown();
+                release.await();
+            }
+            return page;
+        });
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(memberRepository,
+                new TenantSearchLimiter(registry, 1, Duration.ofMillis(50), 64, 1000),
+                registry, true, Duration.ZERO);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Page<MemberTeamDto>> blocked = executor.submit(() ->
+                coalescer.searchPageComplex(condition("heavy", "teamA"), PageRequest.of(0, 20)));
+        started.await();
+
+        assertThatThrownBy(() -> coalescer.searchPageComplex(condition("heavy", "teamB"), PageRequest.of(0, 20)))
+                .isInstanceOf(TenantBusyException.class);
+        assertThat(coalescer.searchPageComplex(condition("light", "teamB"), PageRequest.of(0, 20)))
+                .as("다른 테넌트는 영향 없음")
+                .isSameAs(page);
+
+        release.countDown();
+        assertThat(blocked.get()).isSameAs(page);
+        executor.shutdown();
+        assertThat(registry.counter("member.tenant.search.rejected", "tenant", "heavy").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void doNotReuseResultAcrossDataVersions() {
+        MemberRepository memberRepository = mock(MemberRepository.class);
+        Page<MemberTeamDto> before = new PageImpl<>(List.of());
+        Page<MemberTeamDto> after = new PageImpl<>(List.of());
+        when(memberRepository.searchPageComplex(any(), any())).thenReturn(before, after);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(memberRepository,
+                new TenantSearchLimiter(registry, 4, Duration.ofMillis(100), 64, 1000),
+                registry, true, Duration.ofMinutes(1));
+
+        assertThat(coalescer.searchPageComplex(condition(null, "teamA"), PageRequest.of(0, 20))).isSameAs(before);
+        assertThat(coalescer.searchPageComplex(condition(null, "teamA"), PageRequest.of(0, 20)))
+                .as("window 동안 재사용")
+                .isSameAs(before);
+
+        DataVersion.increment();
+
+        assertThat(coalescer.searchPageComplex(condition(null, "teamA"), PageRequest.of(0, 20)))
+                .as("커밋된 변경 이후에는 새로 조회")
+                .isSameAs(after);
+        verify(memberRepository, times(2)).searchPageComplex(any(), any());
+    }
+
+    @Test
+    public void propagateErrorToWaiters() throws Exception {
+        MemberRepository memberRepository = mock(MemberRepository.class);
+        CountDownLatch release = new CountDownLatch(1);
+        when(memberRepository.searchPageComplex(any(), any())).thenAnswer(invocation -> {
+            release.await();
+            throw new StackOverflowError();
+        });
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(memberRepository,
+                new TenantSearchLimiter(registry, 4, Duration.ofMillis(100), 64, 1000),
+                registry, true, Duration.ZERO);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Future<Page<MemberTeamDto>>> results = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            results.add(executor.submit(() ->
+                    coalescer.searchPageComplex(condition(null, "teamA"), PageRequest.of(0, 20))));
+        }
+        while (registry.counter("member.search.coalescing.requests").count() < 2) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+
+        for (Future<Page<MemberTeamDto>> result : results) {
+            assertThatThrownBy(result::get).hasCauseInstanceOf(StackOverflowError.class);
+        }
+        executor.shutdown();
+
+        // 키가 남아 있지 않아 다음 요청은 다시 조회한다.
+        reset(memberRepository);
+        Page<MemberTeamDto> page = new PageImpl<>(List.of());
+        when(memberRepository.searchPageComplex(any(), any())).thenReturn(page);
+        assertThat(coalescer.searchPageComplex(condition(null, "teamA"), PageRequest.of(0, 20))).isSameAs(page);
+    }
+
+    @Test
+    public void boundTrackedTenants() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        TenantSearchLimiter limiter = new TenantSearchLimiter(registry, 1, Duration.ofMillis(10), 64, 2);
+
+        limiter.execute("tenantA", () -> 1);
+        limiter.execute("tenantB", () -> 1);
+        limiter.execute("tenantC", () -> 1);
+
+        assertThat(limiter.bucketOf("tenantA")).isEqualTo("tenantA");
+        assertThat(limiter.bucketOf("tenantC")).isEqualTo(TenantSearchLimiter.OVERFLOW_TENANT);
+        assertThat(limiter.bucketOf("tenantD")).isEqualTo(TenantSearchLimiter.OVERFLOW_TENANT);
+
+        assertThat(TenantSearchLimiter.isValidTenant("tenant-1_a")).isTrue();
+        assertThat(TenantSearchLimiter.isValidTenant("tenant a")).isFalse();
+        assertThat(TenantSearchLimiter.isValidTenant("a".repeat(65))).isFalse();
+    }
+
+    private static MemberSearchCondition condition(String tenantId, String teamName) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTenantId(tenantId);
+        condition.setTeamName(teamName);
+        return condition;
+    }
+}
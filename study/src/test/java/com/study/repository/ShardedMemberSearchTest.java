@@ -0,0 +1,219 @@
+package com.study.repository;
+
+import com.study.dto.MemberField;
+import com.study.dto.MemberSearchCondition;
+import com.study.dto.MemberTeamDto;
+import com.study.entity.Member;
+import com.study.entity.Team;
+import com.study.service.MemberAgeService;
+import com.study.service.MemberWriteBehindBuffer;
+import com.study.service.TeamService;
+import com.study.shard.Shard;
+import com.study.shard.ShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest(properties = {
+        "member.sharding.enabled=true",
+        "member.sharding.urls=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1",
+        "member.sharding.ddl-auto=create-drop",
+        "member.warmup.fail-on-error=true",
+        "member.write-behind.enabled=true",
+        "member.write-behind.flush-interval=1h"
+})
+class ShardedMemberSearchTest {
+
+    @Autowired
+    ShardRouter shardRouter;
+    @Autowired
+    ShardedMemberSearch shardedMemberSearch;
+    @Autowired
+    ShardedMemberWriter shardedMemberWriter;
+    @Autowired
+    MemberSearchCoalescer memberSearchCoalescer;
+    @Autowired
+    TeamService teamService;
+    @Autowired
+    MemberAgeService memberAgeService;
+    @Autowired
+    MemberWriteBehindBuffer writeBehindBuffer;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    Team teamA;
+    Team teamB;
+    Map<String, Long> ids = new LinkedHashMap<>();
+
+    @BeforeEach
+    public void before() {
+        shardRouter.shards().forEach(shard -> shard.write(em -> {
+            em.createNativeQuery("delete from member_username_gram").executeUpdate();
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        }));
+        teamA = shardedMemberWriter.createTeam("teamA");
+        teamB = shardedMemberWriter.createTeam("teamB");
+        saveMembers(teamA, 10, 20, 30);
+        saveMembers(teamB, 40, 50, 60);
+    }
+
+    private void saveMembers(Team team, int... ages) {
+        for (int age : ages) {
+            Member member = shardedMemberWriter.saveMember(new Member("member" + age, age, team));
+            ids.put(member.getUsername(), member.getId());
+        }
+    }
+
+    /**
+     * 회원 id 의 상위 비트가 샤드 번호다. 같은 팀의 회원도 여러 샤드에 나뉜다.
+     */
+    @Test
+    public void memberIdEncodesShard() {
+        ids.forEach((username, id) ->
+                assertThat(shardRouter.shardOf(id)).isSameAs(shardRouter.shardForNew(username)));
+        assertThat(ids.values()).anyMatch(id -> id >= ShardRouter.idBase(1));
+        assertThat(shardRouter.shardOf(ids.get("member10"))).isNotSameAs(shardRouter.shardOf(ids.get("member20")));
+
+        for (Shard shard : shardRouter.shards()) {
+            assertThat(shard.<String>readEntities(em -> em.find(Team.class, teamA.getId()).getName())).isEqualTo("teamA");
+        }
+    }
+
+    @Test
+    public void mergeAcrossShards() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<MemberTeamDto> result = shardedMemberSearch.searchPageComplex(condition,
+                PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "age")));
+
+        assertThat(result.getTotalElements()).isEqualTo(5);
+        assertThat(result.getContent()).extracting("age").containsExactly(40, 30);
+        assertThat(result.getContent()).extracting("teamName").containsExactly("teamB", "teamA");
+    }
+
+    /**
+     * 샤드마다 플랜 캐시가 따로 있으므로 시작 시 샤드 경로도 데운다.
+     */
+    @Test
+    public void warmShardedShapes() {
+        assertThat(meterRegistry.find("member.warmup").tag("shape", "sharded.search").timer()).isNotNull();
+        assertThat(meterRegistry.find("member.warmup").tag("shape", "sharded.searchPage.NONE").timer()).isNotNull();
+    }
+
+    @Test
+    public void searchTeamNameAcrossShards() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        List<MemberTeamDto> result = shardedMemberSearch.search(condition);
+
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member10", "member20", "member30");
+    }
+
+    @Test
+    public void routeCoalescerReadsToShards() {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        Page<MemberTeamDto> result = memberSearchCoalescer.searchPage(condition,
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.ASC, "age")), CountMode.NONE);
+        assertThat(result.getContent()).extracting("age").containsExactly(20, 30);
+        assertThat(result.hasNext()).isTrue();
+
+        assertThat(memberSearchCoalescer.searchBatch(List.of(condition)).get(0)).hasSize(5);
+
+        assertThat(memberSearchCoalescer.searchByIds(List.of(ids.get("member10"), ids.get("member20"))))
+                .extracting("username").containsExactlyInAnyOrder("member10", "member20");
+
+        Set<MemberField> fields = EnumSet.of(MemberField.USERNAME, MemberField.TEAM_NAME);
+        Page<Map<String, Object>> fieldsPage = memberSearchCoalescer.searchPageFields(condition, fields,
+                PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "age")), CountMode.EXACT);
+        assertThat(fieldsPage.getTotalElements()).isEqualTo(5);
+        assertThat(fieldsPage.getContent()).containsExactly(
+                Map.of("username", "member60", "teamName", "teamB"),
+                Map.of("username", "member50", "teamName", "teamB"));
+
+        try (Stream<MemberTeamDto> stream = memberSearchCoalescer.streamSearch(condition)) {
+            assertThat(stream.map(MemberTeamDto::getAge)).containsExactlyInAnyOrder(20, 30, 40, 50, 60);
+        }
+
+        List<Member> detached = memberSearchCoalescer.findDetachedByUsername("member20");
+        assertThat(detached).singleElement().extracting(member -> member.getTeam().getName()).isEqualTo("teamA");
+    }
+
+    /**
+     * 쓰기는 회원 id 의 샤드로 가고, 팀 이동/팀명 변경에도 회원은 샤드를 옮기지 않는다.
+     */
+    @Test
+    public void routeWritesToShards() {
+        Map<Long, Shard> before = ids.values().stream()
+                .collect(Collectors.toMap(id -> id, shardRouter::shardOf));
+
+        assertThat(memberSearchCoalescer.incrementAge(ids.values(), 1)).isEqualTo(6);
+        assertThat(memberAgeService.incrementAge(ids.values(), 1)).isEqualTo(6);
+        assertThat(memberSearchCoalescer.moveMembers(teamB.getId(),
+                List.of(ids.get("member10"), ids.get("member20")))).isEqualTo(2);
+        teamService.rename(teamB.getId(), "teamC");
+
+        assertThat(memberSearchCoalescer.searchByIds(ids.values()))
+                .extracting(MemberTeamDto::getUsername, MemberTeamDto::getAge, MemberTeamDto::getTeamName)
+                .containsExactlyInAnyOrder(
+                        tuple("member10", 12, "teamC"),
+                        tuple("member20", 22, "teamC"),
+                        tuple("member30", 32, "teamA"),
+                        tuple("member40", 42, "teamC"),
+                        tuple("member50", 52, "teamC"),
+                        tuple("member60", 62, "teamC"));
+        for (Shard shard : shardRouter.shards()) {
+            assertThat(shard.<String>readEntities(em -> em.find(Team.class, teamB.getId()).getName())).isEqualTo("teamC");
+        }
+        before.forEach((id, shard) -> assertThat(shard.<Member>readEntities(em -> em.find(Member.class, id))).isNotNull());
+    }
+
+    @Test
+    public void writeBehindToMemberShard() {
+        Long memberId = ids.values().stream()
+                .filter(id -> id >= ShardRouter.idBase(1))
+                .findFirst()
+                .orElseThrow();
+
+        writeBehindBuffer.changeAge(memberId, 99);
+        writeBehindBuffer.changeTeam(memberId, teamB.getId());
+
+        Member found = writeBehindBuffer.findById(memberId).orElseThrow();
+        assertThat(found.getAge()).isEqualTo(99);
+        assertThat(found.getTeamName()).isEqualTo("teamB");
+    }
+
+    /**
+     * 회원 id 는 샤드 간에도 유일하므로 같은 정렬 값은 회원 id 로 순서를 정한다.
+     */
+    @Test
+    public void breakTiesByMemberId() {
+        MemberTeamDto shard1 = new MemberTeamDto(ShardRouter.idBase(1) + 1, "member1", 10, null, null);
+        MemberTeamDto shard0 = new MemberTeamDto(1L, "member1", 10, null, null);
+
+        List<MemberTeamDto> merged = ShardedMemberSearch.merge(List.of(List.of(shard1), List.of(shard0)),
+                ShardedMemberSearch.comparator(Sort.by("age")), 0, 10);
+
+        assertThat(merged).containsExactly(shard0, shard1);
+    }
+}
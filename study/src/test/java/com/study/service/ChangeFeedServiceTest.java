@@ -0,0 +1,126 @@
+package com.study.service;
+
+import com.study.dto.ChangeBatch;
+import com.study.dto.ChangeDto;
+import com.study.entity.Member;
+import com.study.repository.ChangeOutbox;
+import com.study.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * 변경분은 커밋된 뒤에만 보이므로 테스트 트랜잭션(롤백) 없이 실행한다.
+ */
+@SpringBootTest
+class ChangeFeedServiceTest {
+
+    @Autowired
+    ChangeFeedService changeFeedService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ChangeOutbox changeOutbox;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void readCommittedChanges() {
+        long since = changeFeedService.head();
+
+        Member member = memberRepository.save(new Member("changeMember", 10));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                memberRepository.incrementAge(List.of(member.getId()), 1));
+
+        ChangeBatch batch = changeFeedService.read(since, 100);
+
+        assertThat(batch.getChanges()).extracting(ChangeDto::getOperation).containsExactly("INSERT", "UPDATE");
+        assertThat(batch.getChanges()).allSatisfy(change -> {
+            assertThat(change.getEntityId()).isEqualTo(member.getId());
+            assertThat(change.getMember().getAge()).isEqualTo(11);
+        });
+        assertThat(batch.getNextSince()).isEqualTo(batch.getChanges().get(1).getSeq());
+        assertThat(changeFeedService.read(batch.getNextSince(), 100).getChanges()).isEmpty();
+
+        memberRepository.delete(memberRepository.findById(member.getId()).get());
+    }
+
+    @Test
+    public void rolledBackChangesAreNotVisible() {
+        long since = changeFeedService.head();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.save(new Member("rolledBack", 10));
+            memberRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(changeFeedService.read(since, 100).getChanges()).isEmpty();
+    }
+
+    @Test
+    public void longPollCompletesOnCommit() {
+        long since = changeFeedService.head();
+
+        DeferredResult<ChangeBatch> result = changeFeedService.poll(since, 100, Duration.ofSeconds(10));
+        assertThat(result.hasResult()).isFalse();
+
+        Member member = memberRepository.save(new Member("pollMember", 20));
+
+        await().atMost(Duration.ofSeconds(5)).until(result::hasResult);
+        ChangeBatch batch = (ChangeBatch) result.getResult();
+        assertThat(batch.getChanges()).extracting(ChangeDto::getEntityId).containsExactly(member.getId());
+
+        memberRepository.delete(member);
+    }
+
+    @Test
+    public void deliverSameSinceWaitersWithOneRead() {
+        long since = changeFeedService.head();
+
+        DeferredResult<ChangeBatch> one = changeFeedService.poll(since, 1, Duration.ofSeconds(10));
+        DeferredResult<ChangeBatch> all = changeFeedService.poll(since, 100, Duration.ofSeconds(10));
+
+        List<Member> members = new TransactionTemplate(transactionManager).execute(status -> List.of(
+                memberRepository.save(new Member("pollMember1", 10)),
+                memberRepository.save(new Member("pollMember2", 20))));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> one.hasResult() && all.hasResult());
+        ChangeBatch first = (ChangeBatch) one.getResult();
+        ChangeBatch both = (ChangeBatch) all.getResult();
+        assertThat(first.getChanges()).hasSize(1);
+        assertThat(first.getNextSince()).isEqualTo(first.getChanges().get(0).getSeq());
+        assertThat(both.getChanges()).extracting(ChangeDto::getEntityId)
+                .containsExactly(members.get(0).getId(), members.get(1).getId());
+
+        memberRepository.deleteAll(members);
+    }
+
+    /**
+     * 보관 기간이 지난 변경은 지우되 마지막 행은 남겨 head 가 뒤로 가지 않는다.
+     */
+    @Test
+    public void purgeKeepsHead() {
+        Member member = memberRepository.save(new Member("purgeMember", 10));
+        memberRepository.delete(member);
+        long head = changeFeedService.head();
+
+        changeOutbox.purgeOlderThan(LocalDateTime.now().plusMinutes(1));
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from change_event", Long.class)).isEqualTo(1);
+        assertThat(changeFeedService.head()).isEqualTo(head);
+    }
+}
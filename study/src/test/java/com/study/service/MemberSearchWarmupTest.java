@@ -0,0 +1,89 @@
+package com.study.service;
+
+import com.study.dto.MemberSearchCondition;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"member.warmup.enabled=true", "member.warmup.iterations=1", "member.warmup.fail-on-error=true"})
+class MemberSearchWarmupTest {
+
+    @Autowired
+    ReadinessProbe readinessProbe;
+    @Autowired
+    ApplicationAvailability availability;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    /**
+     * ACCEPTING_TRAFFIC 이 되는 시점에 이미 warm-up 이 끝나 있어야 한다.
+     */
+    @Test
+    public void readinessWaitsForWarmup() {
+        assertThat(availability.getReadinessState()).isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+        assertThat(readinessProbe.warmupsWhenAccepting).containsExactly(1L);
+    }
+
+    /**
+     * X-Tenant-Id 없는 요청의 형태도 데운다. 샤딩이 꺼져 있으면 샤드 경로는 건너뛴다.
+     */
+    @Test
+    public void warmDefaultTenantShapes() {
+        assertThat(meterRegistry.find("member.warmup").tag("shape", "default.search.age").timer())
+                .isNotNull()
+                .extracting(Timer::count).isEqualTo(1L);
+        assertThat(meterRegistry.find("member.warmup").tag("shape", "default.searchPage.AUTO").timer()).isNotNull();
+        assertThat(meterRegistry.find("member.warmup").tag("shape", "sharded.search").timer()).isNull();
+    }
+
+    /**
+     * default 테넌트 형태는 나이 범위를 비워서 회원을 읽지 않는다.
+     */
+    @Test
+    public void defaultTenantConditionMatchesNothing() {
+        MemberSearchCondition condition = MemberSearchWarmup.defaultTenantCondition(c -> c.setAgeGoe(0));
+
+        assertThat(condition.getTenantId()).isNull();
+        assertThat(condition.getAgeGoe()).isGreaterThan(condition.getAgeLoe());
+    }
+
+    @TestConfiguration
+    static class Config {
+
+        @Bean
+        ReadinessProbe readinessProbe(MeterRegistry meterRegistry) {
+            return new ReadinessProbe(meterRegistry);
+        }
+    }
+
+    static class ReadinessProbe {
+
+        final MeterRegistry meterRegistry;
+        final List<Long> warmupsWhenAccepting = new ArrayList<>();
+
+        ReadinessProbe(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+        }
+
+        @EventListener
+        public void onReadiness(AvailabilityChangeEvent<ReadinessState> event) {
+            if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                Timer total = meterRegistry.find("member.warmup.total").timer();
+                warmupsWhenAccepting.add(total == null ? 0 : total.count());
+            }
+        }
+    }
+}
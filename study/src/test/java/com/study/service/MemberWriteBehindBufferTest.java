@@ -0,0 +1,144 @@
+package com.study.service;
+
+import com.study.entity.Member;
+import com.study.entity.Team;
+import com.study.repository.MemberRepository;
+import com.study.repository.TeamRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 버퍼는 별도 트랜잭션으로 커밋하므로 테스트 트랜잭션 없이 실행한다. 주기 flush 는 테스트 중에 돌지 않게 길게 둔다.
+ */
+@SpringBootTest(properties = {
+        "member.write-behind.enabled=true",
+        "member.write-behind.flush-interval=1h",
+        "member.write-behind.max-attempts=3"})
+class MemberWriteBehindBufferTest {
+
+    static final String USERNAME = "writeBehindMember";
+    static final Long MISSING_TEAM_ID = -1L;
+
+    @Autowired
+    MemberWriteBehindBuffer buffer;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    MeterRegistry meterRegistry;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    Team teamA;
+    Team teamB;
+
+    @AfterEach
+    public void after() {
+        buffer.flush();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.deleteAll(memberRepository.findByUsername(USERNAME));
+            if (teamA != null) {
+                teamRepository.deleteById(teamA.getId());
+                teamRepository.deleteById(teamB.getId());
+            }
+        });
+    }
+
+    @Test
+    public void coalesceChangesPerMember() {
+        Member member = save();
+
+        buffer.changeAge(member.getId(), 11);
+        buffer.changeAge(member.getId(), 12);
+        buffer.changeTeam(member.getId(), teamB.getId());
+        assertThat(buffer.pendingCount()).isEqualTo(1);
+
+        buffer.flush();
+
+        assertThat(buffer.pendingCount()).isZero();
+        assertThat(age(member.getId())).isEqualTo(12);
+        assertThat(jdbcTemplate.queryForObject("select team_name from member where member_id = ?",
+                String.class, member.getId())).isEqualTo("writeBehindTeamB");
+    }
+
+    @Test
+    public void readYourWrites() {
+        Member member = save();
+
+        buffer.changeAge(member.getId(), 30);
+
+        assertThat(buffer.findById(member.getId())).get().extracting(Member::getAge).isEqualTo(30);
+        assertThat(buffer.pendingCount()).isZero();
+    }
+
+    /**
+     * 트랜잭션 안에서 이미 읽은 회원도 findById 가 반영한 값으로 보인다.
+     */
+    @Test
+    public void readYourWritesInsideTransaction() {
+        Member member = save();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Member managed = memberRepository.findById(member.getId()).orElseThrow();
+            buffer.changeAge(member.getId(), 30);
+
+            Member found = buffer.findById(member.getId()).orElseThrow();
+
+            assertThat(found).isSameAs(managed);
+            assertThat(found.getAge()).isEqualTo(30);
+            assertThat(found.getVersion()).isEqualTo(member.getVersion() + 1);
+        });
+    }
+
+    @Test
+    public void requeueFailedBatchThenDropPoisonRow() {
+        Member good = save();
+        Member poison = save();
+        double droppedBefore = meterRegistry.counter("member.write-behind.dropped").count();
+
+        buffer.changeAge(good.getId(), 50);
+        buffer.changeTeam(poison.getId(), MISSING_TEAM_ID);
+
+        // 1, 2번째: 배치 전체가 실패하고 되돌려 놓는다.
+        for (int attempt = 1; attempt < 3; attempt++) {
+            assertThatThrownBy(buffer::flush).isInstanceOf(RuntimeException.class);
+            assertThat(buffer.pendingCount()).isEqualTo(2);
+            assertThat(age(good.getId())).isEqualTo(10);
+        }
+
+        // 3번째: 한 건씩 써서 정상 행은 반영하고 실패하는 행은 버린다.
+        buffer.flush();
+
+        assertThat(buffer.pendingCount()).isZero();
+        assertThat(age(good.getId())).isEqualTo(50);
+        assertThat(jdbcTemplate.queryForObject("select team_id from member where member_id = ?",
+                Long.class, poison.getId())).isEqualTo(teamA.getId());
+        assertThat(meterRegistry.counter("member.write-behind.dropped").count()).isEqualTo(droppedBefore + 1);
+    }
+
+    Member save() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            if (teamA == null) {
+                teamA = teamRepository.save(new Team("writeBehindTeamA"));
+                teamB = teamRepository.save(new Team("writeBehindTeamB"));
+            }
+            return memberRepository.save(new Member(USERNAME, 10, teamA));
+        });
+    }
+
+    int age(Long memberId) {
+        return jdbcTemplate.queryForObject("select age from member where member_id = ?", Integer.class, memberId);
+    }
+}